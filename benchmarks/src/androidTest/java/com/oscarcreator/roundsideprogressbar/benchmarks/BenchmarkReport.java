@@ -0,0 +1,86 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.os.Build;
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * @author Oscar Creator
+ *
+ * Collects the results of one benchmark class and writes them as JSON to
+ * files/benchmarks/[name].json of the test app, in the external files dir when
+ * there is one. Every result is also logged with the tag {@link #TAG} so it can be
+ * read from logcat without pulling the file.
+ * */
+final class BenchmarkReport {
+
+    static final String TAG = "ProgressBarBenchmark";
+
+    private final String name;
+
+    private final JSONArray results = new JSONArray();
+
+    BenchmarkReport(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds the result of one case. Put the parameters of the case in the returned
+     * object.
+     *
+     * @param caseName the name of the measured operation
+     * @param result the measured values
+     * @return the JSON object of the case
+     * */
+    JSONObject add(String caseName, BenchmarkRunner.Result result) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("case", caseName);
+        json.put("medianNanos", result.medianNanos);
+        json.put("minNanos", result.minNanos);
+        json.put("allocations", result.allocations);
+        json.put("allocatedBytes", result.allocatedBytes);
+        results.put(json);
+        return json;
+    }
+
+    /**
+     * Writes every added result to the report file.
+     * */
+    void write() throws JSONException, IOException {
+        for (int i = 0; i < results.length(); i++){
+            Log.i(TAG, name + " " + results.getJSONObject(i));
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("benchmark", name);
+        report.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        report.put("sdk", Build.VERSION.SDK_INT);
+        report.put("results", results);
+
+        Context context = InstrumentationRegistry.getTargetContext();
+        File dir = context.getExternalFilesDir("benchmarks");
+        if (dir == null){
+            dir = new File(context.getFilesDir(), "benchmarks");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()){
+            throw new IOException("Could not create " + dir);
+        }
+
+        File file = new File(dir, name + ".json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(report.toString(2));
+        }
+        Log.i(TAG, "Wrote " + file);
+    }
+}
@@ -0,0 +1,98 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.os.Debug;
+
+import java.util.Arrays;
+
+/**
+ * @author Oscar Creator
+ *
+ * Times an operation on the calling thread. The operation is first warmed up, then
+ * run in several batches and the median time per operation of the batches is used,
+ * so a single garbage collection or context switch doesn't skew the result.
+ * The allocations of the calling thread are counted in a separate batch.
+ * */
+final class BenchmarkRunner {
+
+    private static final int WARMUP_ITERATIONS = 500;
+    private static final int ITERATIONS = 1000;
+    private static final int BATCHES = 7;
+
+    /**
+     * The measured values of one operation.
+     * */
+    static final class Result {
+
+        //Median and fastest time of one operation
+        final long medianNanos, minNanos;
+
+        //Objects and bytes allocated by one operation
+        final float allocations, allocatedBytes;
+
+        Result(long medianNanos, long minNanos, float allocations, float allocatedBytes) {
+            this.medianNanos = medianNanos;
+            this.minNanos = minNanos;
+            this.allocations = allocations;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Operation to measure. Gets the index of the iteration so it can alternate
+     * between values without allocating.
+     * */
+    interface Operation {
+        void run(int iteration);
+    }
+
+    private BenchmarkRunner() {}
+
+    /**
+     * Measures the operation with the default quantity of iterations.
+     *
+     * @param operation the operation to measure
+     * @return the measured values
+     * */
+    static Result measure(Operation operation){
+        return measure(operation, ITERATIONS);
+    }
+
+    /**
+     * Measures the operation.
+     *
+     * @param operation the operation to measure
+     * @param iterations quantity of operations in each batch
+     * @return the measured values
+     * */
+    @SuppressWarnings("deprecation")
+    static Result measure(Operation operation, int iterations){
+        for (int i = 0; i < Math.min(WARMUP_ITERATIONS, iterations); i++){
+            operation.run(i);
+        }
+
+        long[] batches = new long[BATCHES];
+        for (int batch = 0; batch < BATCHES; batch++){
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++){
+                operation.run(i);
+            }
+            batches[batch] = (System.nanoTime() - start) / iterations;
+        }
+        Arrays.sort(batches);
+
+        //Counting slows down allocations, so it's done apart from the timing
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < iterations; i++){
+                operation.run(i);
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        float allocations = Debug.getThreadAllocCount() / (float) iterations;
+        float allocatedBytes = Debug.getThreadAllocSize() / (float) iterations;
+
+        return new Result(batches[BATCHES / 2], batches[0], allocations, allocatedBytes);
+    }
+}
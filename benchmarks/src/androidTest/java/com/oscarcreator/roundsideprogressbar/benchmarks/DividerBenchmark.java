@@ -0,0 +1,105 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBarDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Oscar Creator
+ *
+ * Frame time of drawing the dividers in a single clipped draw call compared to the
+ * previous one clip, draw and restore per divider, at 5, 50 and 500 dividers.
+ * The level of detail is disabled so every divider is drawn.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class DividerBenchmark {
+
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 100;
+
+    private static final int[] DIVIDERS = {5, 50, 500};
+
+    @Test
+    public void drawDividers() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        BenchmarkReport report = new BenchmarkReport("DividerBenchmark");
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        for (int dividers : DIVIDERS){
+            RoundSideProgressBarDrawable singlePass = createDrawable(new RoundSideProgressBarDrawable(context), dividers);
+            report.add("singlePass", measureDraw(singlePass, canvas))
+                    .put("dividers", dividers);
+
+            RoundSideProgressBarDrawable perDivider = createDrawable(new PerDividerClipDrawable(context), dividers);
+            report.add("perDividerClip", measureDraw(perDivider, canvas))
+                    .put("dividers", dividers);
+        }
+
+        report.write();
+    }
+
+    private static RoundSideProgressBarDrawable createDrawable(RoundSideProgressBarDrawable drawable, int dividers){
+        drawable.setOutlineWidth(4);
+        drawable.setDividerWidth(1);
+        drawable.setDividers(dividers);
+        drawable.setDividerLodSpacing(0, 0, 0);
+        drawable.setBounds(0, 0, WIDTH, HEIGHT);
+        return drawable;
+    }
+
+    private static BenchmarkRunner.Result measureDraw(RoundSideProgressBarDrawable drawable, Canvas canvas){
+        float maxProgress = drawable.getMaxProgress();
+        return BenchmarkRunner.measure(iteration -> {
+            drawable.setProgress((iteration % 100) / 100f * maxProgress);
+            drawable.draw(canvas);
+        });
+    }
+
+    /**
+     * Draws the dividers like before the single pass rendering, by clipping the
+     * rounded bar to every divider on its own.
+     * */
+    private static final class PerDividerClipDrawable extends RoundSideProgressBarDrawable {
+
+        private final Path barPath = new Path();
+        private final RectF barRect = new RectF();
+        private final Paint dividerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+        PerDividerClipDrawable(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void drawStaticForeground(Canvas canvas) {
+            float outlineWidth = getOutlineWidth();
+            barRect.set(getBounds());
+            barRect.inset(outlineWidth, outlineWidth);
+            composeRoundedRect(barPath, barRect, getOrientation());
+            dividerPaint.setColor(getDividerColor());
+
+            boolean horizontal = getOrientation() == RoundSideProgressBar.CONSTANT_HORIZONTAL;
+            for (int i = 0; i < getDividers(); i++){
+                float position = getDividerPosition(i);
+                canvas.save();
+                if (horizontal){
+                    canvas.clipRect(position, barRect.top, position + getDividerWidth(), barRect.bottom);
+                }else{
+                    canvas.clipRect(barRect.left, position, barRect.right, position + getDividerWidth());
+                }
+                canvas.drawPath(barPath, dividerPaint);
+                canvas.restore();
+            }
+        }
+    }
+}
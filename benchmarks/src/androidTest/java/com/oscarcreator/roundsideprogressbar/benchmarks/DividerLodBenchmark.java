@@ -0,0 +1,73 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBarDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Oscar Creator
+ *
+ * Frame time of drawing up to 100,000 dividers with the level of detail chosen from
+ * the divider spacing, compared to drawing every divider. The chosen level of detail
+ * is reported with every case.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class DividerLodBenchmark {
+
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 100;
+
+    private static final int[] DIVIDERS = {10, 100, 1000, 10000, 100000};
+
+    //Drawing every one of many dividers is slow, fewer iterations keep the run short
+    private static final int MANY_DIVIDERS = 10000;
+    private static final int MANY_DIVIDERS_ITERATIONS = 50;
+
+    @Test
+    public void drawDividers() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        BenchmarkReport report = new BenchmarkReport("DividerLodBenchmark");
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        for (int dividers : DIVIDERS){
+            int iterations = dividers >= MANY_DIVIDERS ? MANY_DIVIDERS_ITERATIONS : 1000;
+
+            RoundSideProgressBarDrawable lod = createDrawable(context, dividers);
+            report.add("lod", measureDraw(lod, canvas, iterations))
+                    .put("dividers", dividers)
+                    .put("dividerLod", lod.getDividerLod());
+
+            RoundSideProgressBarDrawable full = createDrawable(context, dividers);
+            full.setDividerLodSpacing(0, 0, 0);
+            report.add("full", measureDraw(full, canvas, iterations))
+                    .put("dividers", dividers)
+                    .put("dividerLod", full.getDividerLod());
+        }
+
+        report.write();
+    }
+
+    private static RoundSideProgressBarDrawable createDrawable(Context context, int dividers){
+        RoundSideProgressBarDrawable drawable = new RoundSideProgressBarDrawable(context);
+        drawable.setOutlineWidth(4);
+        drawable.setDividerWidth(1);
+        drawable.setDividers(dividers);
+        drawable.setBounds(0, 0, WIDTH, HEIGHT);
+        return drawable;
+    }
+
+    private static BenchmarkRunner.Result measureDraw(RoundSideProgressBarDrawable drawable, Canvas canvas, int iterations){
+        float maxProgress = drawable.getMaxProgress();
+        return BenchmarkRunner.measure(iteration -> {
+            drawable.setProgress((iteration % 100) / 100f * maxProgress);
+            drawable.draw(canvas);
+        }, iterations);
+    }
+}
@@ -0,0 +1,99 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.oscarcreator.roundsideprogressbar.DividedRoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.TestViews;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Oscar Creator
+ *
+ * Time and allocations of drawing a progressbar while the progress changes, for
+ * different sizes, orientations, outline widths and quantities of dividers.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class DrawBenchmark {
+
+    //Length and thickness of the bars
+    private static final int[][] SIZES = {{250, 50}, {1000, 100}};
+
+    private static final int[] ORIENTATIONS = {
+            RoundSideProgressBar.CONSTANT_HORIZONTAL, RoundSideProgressBar.CONSTANT_VERTICAL};
+
+    private static final float[] OUTLINE_WIDTHS = {0, 8};
+
+    private static final int[] DIVIDERS = {5, 50, 500};
+
+    @Test
+    public void drawRoundSideProgressBar() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        BenchmarkReport report = new BenchmarkReport("DrawBenchmark.RoundSideProgressBar");
+
+        for (int[] size : SIZES){
+            for (int orientation : ORIENTATIONS){
+                for (float outlineWidth : OUTLINE_WIDTHS){
+                    RoundSideProgressBar bar = new RoundSideProgressBar(context);
+                    measureDraw(report, bar, size, orientation, outlineWidth)
+                            .put("dividers", 0);
+                }
+            }
+        }
+
+        report.write();
+    }
+
+    @Test
+    public void drawDividedRoundSideProgressBar() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        BenchmarkReport report = new BenchmarkReport("DrawBenchmark.DividedRoundSideProgressBar");
+
+        for (int[] size : SIZES){
+            for (int orientation : ORIENTATIONS){
+                for (float outlineWidth : OUTLINE_WIDTHS){
+                    for (int dividers : DIVIDERS){
+                        DividedRoundSideProgressBar bar = new DividedRoundSideProgressBar(context);
+                        bar.setDividers(dividers);
+                        measureDraw(report, bar, size, orientation, outlineWidth)
+                                .put("dividers", dividers);
+                    }
+                }
+            }
+        }
+
+        report.write();
+    }
+
+    private static JSONObject measureDraw(BenchmarkReport report, RoundSideProgressBar bar,
+                                          int[] size, int orientation, float outlineWidth) throws Exception {
+        bar.setOrientation(orientation);
+        bar.setOutlineWidth(outlineWidth);
+
+        boolean horizontal = orientation == RoundSideProgressBar.CONSTANT_HORIZONTAL;
+        int width = horizontal ? size[0] : size[1];
+        int height = horizontal ? size[1] : size[0];
+        TestViews.layout(bar, width, height);
+
+        Canvas canvas = TestViews.createCanvas(bar);
+        float maxProgress = bar.getMaxProgress();
+
+        //Every draw is of a new progress, like during an animation
+        BenchmarkRunner.Result result = BenchmarkRunner.measure(iteration -> {
+            bar.setProgress((iteration % 100) / 100f * maxProgress);
+            bar.draw(canvas);
+        });
+
+        return report.add("draw", result)
+                .put("width", width)
+                .put("height", height)
+                .put("orientation", horizontal ? "horizontal" : "vertical")
+                .put("outlineWidth", outlineWidth);
+    }
+}
@@ -0,0 +1,61 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.LayoutInflater;
+
+import com.oscarcreator.roundsideprogressbar.DividedRoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBarDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Oscar Creator
+ *
+ * Time of inflating and constructing progressbars with the resolved style cache
+ * cleared before every operation, the cold path, compared to reusing the cached
+ * style. The layout has 20 divided progressbars sharing one style.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class InflationBenchmark {
+
+    //Every inflation creates 20 bars
+    private static final int INFLATE_ITERATIONS = 100;
+
+    @Test
+    public void inflate() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        LayoutInflater inflater = LayoutInflater.from(context);
+        BenchmarkReport report = new BenchmarkReport("InflationBenchmark");
+
+        report.add("inflateCold", BenchmarkRunner.measure(iteration -> {
+            RoundSideProgressBarDrawable.clearStyleCache();
+            inflater.inflate(R.layout.benchmark_bars, null);
+        }, INFLATE_ITERATIONS)).put("bars", 20);
+
+        report.add("inflateCached", BenchmarkRunner.measure(iteration ->
+                inflater.inflate(R.layout.benchmark_bars, null), INFLATE_ITERATIONS))
+                .put("bars", 20);
+
+        report.add("roundSideProgressBarCold", BenchmarkRunner.measure(iteration -> {
+            RoundSideProgressBarDrawable.clearStyleCache();
+            new RoundSideProgressBar(context);
+        }));
+
+        report.add("roundSideProgressBarCached", BenchmarkRunner.measure(iteration ->
+                new RoundSideProgressBar(context)));
+
+        report.add("dividedRoundSideProgressBarCold", BenchmarkRunner.measure(iteration -> {
+            RoundSideProgressBarDrawable.clearStyleCache();
+            new DividedRoundSideProgressBar(context);
+        }));
+
+        report.add("dividedRoundSideProgressBarCached", BenchmarkRunner.measure(iteration ->
+                new DividedRoundSideProgressBar(context)));
+
+        report.write();
+    }
+}
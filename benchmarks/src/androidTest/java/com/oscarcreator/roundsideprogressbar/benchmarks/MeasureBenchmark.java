@@ -0,0 +1,51 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import com.oscarcreator.roundsideprogressbar.DividedRoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Oscar Creator
+ *
+ * Time and allocations of measuring a progressbar, with an exact size and with
+ * wrap_content.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class MeasureBenchmark {
+
+    @Test
+    public void measure() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        BenchmarkReport report = new BenchmarkReport("MeasureBenchmark");
+
+        RoundSideProgressBar[] bars = {
+                new RoundSideProgressBar(context), new DividedRoundSideProgressBar(context)};
+        int[] modes = {View.MeasureSpec.EXACTLY, View.MeasureSpec.AT_MOST};
+
+        for (RoundSideProgressBar bar : bars){
+            for (int mode : modes){
+                int widthSpec = View.MeasureSpec.makeMeasureSpec(1000, mode);
+                int heightSpec = View.MeasureSpec.makeMeasureSpec(100, mode);
+
+                BenchmarkRunner.Result result = BenchmarkRunner.measure(iteration -> {
+                    //Otherwise the measure cache skips onMeasure
+                    bar.forceLayout();
+                    bar.measure(widthSpec, heightSpec);
+                });
+
+                report.add("measure", result)
+                        .put("view", bar.getClass().getSimpleName())
+                        .put("mode", mode == View.MeasureSpec.EXACTLY ? "exactly" : "at_most");
+            }
+        }
+
+        report.write();
+    }
+}
@@ -0,0 +1,49 @@
+package com.oscarcreator.roundsideprogressbar.benchmarks;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.oscarcreator.roundsideprogressbar.DividedRoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.RoundSideProgressBar;
+import com.oscarcreator.roundsideprogressbar.TestViews;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Oscar Creator
+ *
+ * Time and allocations of changing the progress, both set directly and retargeting
+ * an animation to a new value. The bars aren't attached to a window, so no frames
+ * are drawn and only the cost of the call itself is measured.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class ProgressBenchmark {
+
+    @Test
+    public void setProgress() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        BenchmarkReport report = new BenchmarkReport("ProgressBenchmark");
+
+        RoundSideProgressBar[] bars = {
+                new RoundSideProgressBar(context), new DividedRoundSideProgressBar(context)};
+
+        for (RoundSideProgressBar bar : bars){
+            TestViews.layout(bar, 1000, 100);
+            float maxProgress = bar.getMaxProgress();
+
+            BenchmarkRunner.Result instant = BenchmarkRunner.measure(iteration ->
+                    bar.setProgress((iteration % 100) / 100f * maxProgress));
+            report.add("setProgress", instant)
+                    .put("view", bar.getClass().getSimpleName());
+
+            BenchmarkRunner.Result retarget = BenchmarkRunner.measure(iteration ->
+                    bar.setProgress((iteration % 100) / 100f * maxProgress, true));
+            report.add("retarget", retarget)
+                    .put("view", bar.getClass().getSimpleName());
+        }
+
+        report.write();
+    }
+}
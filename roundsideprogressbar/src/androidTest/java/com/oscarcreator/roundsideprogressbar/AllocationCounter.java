@@ -0,0 +1,54 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.graphics.Canvas;
+import android.os.Debug;
+
+/**
+ * @author Oscar Creator
+ *
+ * Counts the objects allocated by the calling thread while running some code.
+ * */
+final class AllocationCounter {
+
+    private AllocationCounter() {}
+
+    /**
+     * Runs the code and returns the quantity of objects it allocated on the calling
+     * thread.
+     *
+     * @param runnable the code to count the allocations of
+     * @return quantity of allocated objects
+     * */
+    @SuppressWarnings("deprecation")
+    static int countAllocations(Runnable runnable){
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            runnable.run();
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return Debug.getThreadAllocCount();
+    }
+
+    /**
+     * Draws the progressbar once, since the first draw after a change may build its
+     * caches, then counts the allocations of drawing frames of changing progress.
+     *
+     * @param bar the laid out progressbar
+     * @param canvas the canvas to draw on
+     * @param frames quantity of frames to draw
+     * @return quantity of allocated objects
+     * */
+    static int countProgressDrawAllocations(RoundSideProgressBar bar, Canvas canvas, int frames){
+        bar.onDraw(canvas);
+
+        float maxProgress = bar.getMaxProgress();
+        return countAllocations(() -> {
+            for (int i = 0; i < frames; i++){
+                bar.setProgress((i % 100) / 100f * maxProgress);
+                bar.onDraw(canvas);
+            }
+        });
+    }
+}
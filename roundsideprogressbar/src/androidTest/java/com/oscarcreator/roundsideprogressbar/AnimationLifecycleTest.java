@@ -0,0 +1,151 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.animation.ValueAnimator;
+import android.app.Instrumentation;
+import android.os.Build;
+import android.provider.Settings;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * The progress animation must not run while the progressbar can't be seen. Detaching
+ * ends the animation at its target, hiding pauses it and showing it again resumes it
+ * from where it was.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class AnimationLifecycleTest {
+
+    //Long enough that the animation is still running when the test checks it
+    private static final long ANIMATION_SPEED_MILLIS = 20000;
+
+    private static final long FRAMES_MILLIS = 200;
+
+    @Rule
+    public final ActivityTestRule<TestActivity> activityRule = new ActivityTestRule<>(TestActivity.class);
+
+    private Instrumentation instrumentation;
+
+    private FrameLayout container;
+
+    private RoundSideProgressBar bar;
+
+    private float maxProgress;
+
+    @Before
+    public void setUp(){
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        assumeTrue("Animations are turned off in the developer options", getDurationScale() > 0f);
+
+        instrumentation.runOnMainSync(() -> {
+            TestActivity activity = activityRule.getActivity();
+            container = activity.getContainer();
+            bar = new RoundSideProgressBar(activity);
+            bar.setAnimationSpeed(ANIMATION_SPEED_MILLIS);
+            container.addView(bar, new FrameLayout.LayoutParams(400, 60));
+        });
+        instrumentation.waitForIdleSync();
+        maxProgress = bar.getMaxProgress();
+    }
+
+    @Test
+    public void detachEndsAnimationAtTarget() throws Exception {
+        startAnimation(maxProgress);
+
+        instrumentation.runOnMainSync(() -> container.removeView(bar));
+        assertEquals(maxProgress, getProgress(), 0f);
+
+        //The clock drops the listener on its next frame and has nothing left to run
+        Thread.sleep(FRAMES_MILLIS);
+        assertEquals(0, getActiveClockListeners());
+    }
+
+    @Test
+    public void reattachedProgressbarAnimatesAgain() throws Exception {
+        startAnimation(maxProgress);
+        instrumentation.runOnMainSync(() -> container.removeView(bar));
+        instrumentation.runOnMainSync(() -> container.addView(bar, new FrameLayout.LayoutParams(400, 60)));
+
+        instrumentation.runOnMainSync(() -> bar.setProgress(0f, true));
+        Thread.sleep(FRAMES_MILLIS);
+
+        float progress = getProgress();
+        assertTrue("Expected the animation to run, progress " + progress,
+                progress > 0f && progress < maxProgress);
+    }
+
+    @Test
+    public void goneProgressbarPausesAndResumes() throws Exception {
+        assertPausesAndResumes(() -> bar.setVisibility(View.GONE), () -> bar.setVisibility(View.VISIBLE));
+    }
+
+    @Test
+    public void hiddenParentPausesAndResumes() throws Exception {
+        assertPausesAndResumes(() -> container.setVisibility(View.INVISIBLE),
+                () -> container.setVisibility(View.VISIBLE));
+    }
+
+    private void assertPausesAndResumes(Runnable hide, Runnable show) throws Exception {
+        startAnimation(maxProgress);
+
+        instrumentation.runOnMainSync(hide);
+        //At most one more frame is drawn before the animation sees it's hidden
+        Thread.sleep(FRAMES_MILLIS);
+        float pausedProgress = getProgress();
+        Thread.sleep(FRAMES_MILLIS);
+        assertEquals(pausedProgress, getProgress(), 0f);
+        assertEquals(0, getActiveClockListeners());
+
+        instrumentation.runOnMainSync(show);
+        Thread.sleep(FRAMES_MILLIS);
+        float resumedProgress = getProgress();
+        //Continues from where it was instead of jumping ahead by the hidden time
+        assertTrue("Expected the animation to resume, progress " + resumedProgress,
+                resumedProgress > pausedProgress && resumedProgress < maxProgress / 2);
+    }
+
+    /**
+     * Starts animating to the target and waits until some frames have been drawn.
+     * */
+    private void startAnimation(float target) throws InterruptedException {
+        instrumentation.runOnMainSync(() -> bar.setProgress(target, true));
+        Thread.sleep(FRAMES_MILLIS);
+
+        float progress = getProgress();
+        assertTrue("Expected the animation to run, progress " + progress,
+                progress > 0f && progress < target);
+    }
+
+    private float getProgress(){
+        float[] progress = new float[1];
+        instrumentation.runOnMainSync(() -> progress[0] = bar.getProgress());
+        return progress[0];
+    }
+
+    private int getActiveClockListeners(){
+        int[] count = new int[1];
+        instrumentation.runOnMainSync(() -> count[0] = ProgressAnimationClock.getInstance().getActiveCount());
+        return count[0];
+    }
+
+    private float getDurationScale(){
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
+            return ValueAnimator.getDurationScale();
+        }
+        return Settings.Global.getFloat(InstrumentationRegistry.getTargetContext().getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+    }
+}
@@ -0,0 +1,130 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Oscar Creator
+ *
+ * Constructs thousands of progressbars at once from a thread pool, like inflating
+ * screens off the main thread. Every instance must get the same values as one
+ * constructed on the main thread, also while the resolved style cache is cleared
+ * concurrently, and must work once it's attached.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrentConstructionTest {
+
+    private static final int THREADS = 8;
+    private static final int INSTANCES_PER_THREAD = 500;
+
+    @Rule
+    public final ActivityTestRule<TestActivity> activityRule = new ActivityTestRule<>(TestActivity.class);
+
+    private Instrumentation instrumentation;
+
+    private Context context;
+
+    @Before
+    public void setUp(){
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        context = activityRule.getActivity();
+    }
+
+    @Test
+    public void constructsConcurrently() throws Exception {
+        DividedRoundSideProgressBar.State[] expected = new DividedRoundSideProgressBar.State[1];
+        instrumentation.runOnMainSync(() -> expected[0] = new DividedRoundSideProgressBar(context).getState());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<RoundSideProgressBar>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++){
+            int index = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<RoundSideProgressBar> bars = new ArrayList<>(INSTANCES_PER_THREAD);
+                for (int i = 0; i < INSTANCES_PER_THREAD; i++){
+                    //Races the other threads resolving the style again
+                    if (index == 0 && i % 50 == 0){
+                        RoundSideProgressBarDrawable.clearStyleCache();
+                    }
+                    bars.add(i % 2 == 0 ? new RoundSideProgressBar(context) : new DividedRoundSideProgressBar(context));
+                }
+                return bars;
+            }));
+        }
+
+        start.countDown();
+        List<RoundSideProgressBar> bars = new ArrayList<>();
+        for (Future<List<RoundSideProgressBar>> future : futures){
+            bars.addAll(future.get());
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * INSTANCES_PER_THREAD, bars.size());
+        for (RoundSideProgressBar bar : bars){
+            assertSameValues(expected[0], bar.getState());
+            if (bar instanceof DividedRoundSideProgressBar){
+                DividedRoundSideProgressBar.State state = ((DividedRoundSideProgressBar) bar).getState();
+                assertEquals(expected[0].dividers, state.dividers);
+                assertEquals(expected[0].dividerWidth, state.dividerWidth, 0f);
+                assertEquals(expected[0].dividerColor, state.dividerColor);
+            }
+        }
+
+        assertAttachedBarAnimates(bars.get(bars.size() - 1));
+    }
+
+    /**
+     * Attaches a progressbar constructed on another thread and checks that the work
+     * deferred to the attach, like the animation clock, runs on the main thread.
+     * */
+    private void assertAttachedBarAnimates(RoundSideProgressBar bar) throws InterruptedException {
+        instrumentation.runOnMainSync(() -> {
+            activityRule.getActivity().getContainer().addView(bar, new FrameLayout.LayoutParams(400, 60));
+            bar.setAnimationSpeed(100);
+            bar.setProgress(bar.getMaxProgress(), true);
+        });
+
+        float maxProgress = bar.getMaxProgress();
+        float[] progress = new float[1];
+        long deadline = System.currentTimeMillis() + 2000;
+        do {
+            Thread.sleep(16);
+            instrumentation.runOnMainSync(() -> progress[0] = bar.getProgress());
+        } while (progress[0] != maxProgress && System.currentTimeMillis() < deadline);
+        assertEquals(maxProgress, progress[0], 0f);
+    }
+
+    private static void assertSameValues(RoundSideProgressBar.State expected, RoundSideProgressBar.State actual){
+        assertEquals(expected.maxProgress, actual.maxProgress, 0f);
+        assertEquals(expected.progress, actual.progress, 0f);
+        assertEquals(expected.secondaryProgress, actual.secondaryProgress, 0f);
+        assertEquals(expected.outlineWidth, actual.outlineWidth, 0f);
+        assertEquals(expected.outlineColor, actual.outlineColor);
+        assertEquals(expected.progressColor, actual.progressColor);
+        assertEquals(expected.progressBackgroundColor, actual.progressBackgroundColor);
+        assertEquals(expected.secondaryProgressColor, actual.secondaryProgressColor);
+        assertEquals(expected.orientation, actual.orientation);
+        assertEquals(expected.progressFill, actual.progressFill);
+        assertEquals(expected.indeterminate, actual.indeterminate);
+    }
+}
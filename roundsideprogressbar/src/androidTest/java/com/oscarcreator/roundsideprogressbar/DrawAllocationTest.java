@@ -0,0 +1,131 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Oscar Creator
+ *
+ * The steady state draw path of {@link RoundSideProgressBar} and
+ * {@link DividedRoundSideProgressBar}, and retargeting the progress animation,
+ * must not allocate. Fails on any allocation so a regression is caught by the build.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class DrawAllocationTest {
+
+    private static final int FRAMES = 1000;
+
+    private Context context;
+
+    @Before
+    public void setUp(){
+        context = InstrumentationRegistry.getTargetContext();
+    }
+
+    @Test
+    public void roundSideProgressBarDrawDoesNotAllocate(){
+        RoundSideProgressBar bar = TestViews.layout(newBar(), 400, 60);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void thickOutlineDrawDoesNotAllocate(){
+        RoundSideProgressBar bar = newBar();
+        bar.setOutlineWidth(5);
+        TestViews.layout(bar, 400, 60);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void secondaryProgressDrawDoesNotAllocate(){
+        RoundSideProgressBar bar = TestViews.layout(newBar(), 400, 60);
+        bar.setSecondaryProgress(bar.getMaxProgress() * 0.9f);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void shaderFillDrawDoesNotAllocate(){
+        RoundSideProgressBar bar = TestViews.layout(newBar(), 400, 60);
+        bar.setFillMode(RoundSideProgressBarDrawable.FILL_MODE_SHADER);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void gradientFillDrawDoesNotAllocate(){
+        RoundSideProgressBar bar = TestViews.layout(newBar(), 400, 60);
+        bar.setProgressGradient(new int[]{Color.GREEN, Color.YELLOW, Color.RED}, null);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void staticLayerCacheDrawDoesNotAllocate(){
+        DividedRoundSideProgressBar bar = TestViews.layout(newDividedBar(), 400, 60);
+        bar.setDividers(10);
+        bar.setStaticLayerCacheEnabled(true);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void dividedRoundSideProgressBarDrawDoesNotAllocate(){
+        DividedRoundSideProgressBar bar = TestViews.layout(newDividedBar(), 400, 60);
+        bar.setDividers(10);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void dividerPatternDrawDoesNotAllocate(){
+        DividedRoundSideProgressBar bar = TestViews.layout(newDividedBar(), 400, 60);
+        bar.setDividers(300);
+        assertEquals(RoundSideProgressBarDrawable.DIVIDER_LOD_PATTERN, bar.getDividerLod());
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void verticalDrawDoesNotAllocate(){
+        DividedRoundSideProgressBar bar = newDividedBar();
+        bar.setOrientation(RoundSideProgressBar.CONSTANT_VERTICAL);
+        bar.setDividers(10);
+        TestViews.layout(bar, 60, 400);
+        assertEquals(0, countFrameAllocations(bar));
+    }
+
+    @Test
+    public void retargetingDoesNotAllocate(){
+        RoundSideProgressBar bar = TestViews.layout(newBar(), 400, 60);
+        float maxProgress = bar.getMaxProgress();
+        bar.setProgress(maxProgress / 2, true);
+
+        int allocations = AllocationCounter.countAllocations(() -> {
+            for (int i = 0; i < FRAMES; i++){
+                bar.setProgress((i % 100) / 100f * maxProgress, true);
+            }
+        });
+        assertEquals(0, allocations);
+    }
+
+    //Sizes in pixels so the bar isn't hidden by a dp sized outline on dense screens
+    private RoundSideProgressBar newBar(){
+        RoundSideProgressBar bar = new RoundSideProgressBar(context);
+        bar.setOutlineWidth(2);
+        return bar;
+    }
+
+    private DividedRoundSideProgressBar newDividedBar(){
+        DividedRoundSideProgressBar bar = new DividedRoundSideProgressBar(context);
+        bar.setOutlineWidth(2);
+        bar.setDividerWidth(2);
+        return bar;
+    }
+
+    private static int countFrameAllocations(RoundSideProgressBar bar){
+        return AllocationCounter.countProgressDrawAllocations(bar, TestViews.createCanvas(bar), FRAMES);
+    }
+}
@@ -0,0 +1,202 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * Counts the invalidate and requestLayout calls of an {@link RoundSideProgressBar#edit()}
+ * transaction. Any quantity of changes must end in at most one of each, and none
+ * when nothing changed.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class EditTransactionTest {
+
+    private Context context;
+
+    @Before
+    public void setUp(){
+        context = InstrumentationRegistry.getTargetContext();
+    }
+
+    @Test
+    public void drawOnlyChangesInvalidateOnce(){
+        CountingBar bar = TestViews.layout(new CountingBar(context), 400, 60);
+        bar.resetCounts();
+
+        bar.edit()
+                .setOutlineColor(Color.BLACK)
+                .setProgressColor(Color.RED)
+                .setProgressBackgroundColor(Color.BLUE)
+                .setSecondaryProgressColor(Color.GREEN)
+                .setSecondaryProgress(bar.getMaxProgress() * 0.8f)
+                .setProgress(bar.getMaxProgress() / 2)
+                .apply();
+
+        assertEquals(1, bar.invalidations);
+        assertEquals(0, bar.layoutRequests);
+    }
+
+    @Test
+    public void layoutChangesRequestLayoutOnce(){
+        CountingBar bar = TestViews.layout(new CountingBar(context), 400, 60);
+        bar.resetCounts();
+
+        bar.edit()
+                .setOutlineWidth(bar.getOutlineWidth() + 2)
+                .setOrientation(RoundSideProgressBar.CONSTANT_VERTICAL)
+                .setProgressColor(Color.RED)
+                .setMaxProgress(bar.getMaxProgress() * 2)
+                .apply();
+
+        assertEquals(1, bar.invalidations);
+        assertEquals(1, bar.layoutRequests);
+    }
+
+    @Test
+    public void unchangedValuesDoNothing(){
+        CountingBar bar = TestViews.layout(new CountingBar(context), 400, 60);
+        bar.resetCounts();
+
+        bar.edit()
+                .setOutlineWidth(bar.getOutlineWidth())
+                .setOutlineColor(bar.getOutlineColor())
+                .setOrientation(bar.getOrientation())
+                .setProgressColor(bar.getProgressColor())
+                .setMaxProgress(bar.getMaxProgress())
+                .setProgress(bar.getProgress())
+                .apply();
+
+        assertEquals(0, bar.invalidations);
+        assertEquals(0, bar.layoutRequests);
+    }
+
+    @Test
+    public void nestedTransactionsUpdateOnceAtTheOuterApply(){
+        CountingBar bar = TestViews.layout(new CountingBar(context), 400, 60);
+        bar.resetCounts();
+
+        RoundSideProgressBar.Editor outer = bar.edit().setOutlineWidth(bar.getOutlineWidth() + 2);
+        bar.edit().setProgressColor(Color.RED).apply();
+        assertEquals(0, bar.invalidations);
+        assertEquals(0, bar.layoutRequests);
+
+        outer.apply();
+        assertEquals(1, bar.invalidations);
+        assertEquals(1, bar.layoutRequests);
+    }
+
+    @Test
+    public void rebindingDividedBarInvalidatesOnce(){
+        CountingDividedBar bar = TestViews.layout(new CountingDividedBar(context), 400, 60);
+        bar.resetCounts();
+
+        bar.edit()
+                .setDividers(bar.getDividers() + 3)
+                .setDividerWidth(bar.getDividerWidth() + 1)
+                .setDividerColor(Color.WHITE)
+                .setOutlineColor(Color.BLACK)
+                .setProgressColor(Color.RED)
+                .setProgressBackgroundColor(Color.BLUE)
+                .setMaxProgress(bar.getMaxProgress() * 2)
+                .setProgress(bar.getMaxProgress() / 3)
+                .apply();
+
+        assertEquals(1, bar.invalidations);
+        assertEquals(0, bar.layoutRequests);
+    }
+
+    @Test
+    public void settersWithoutTransactionInvalidateEveryTime(){
+        CountingBar bar = TestViews.layout(new CountingBar(context), 400, 60);
+        bar.resetCounts();
+
+        bar.setOutlineColor(Color.BLACK);
+        bar.setProgressColor(Color.RED);
+        bar.setProgressBackgroundColor(Color.BLUE);
+
+        assertTrue(bar.invalidations > 1);
+    }
+
+    /**
+     * Counts the invalidations, including the partial ones, and layout requests.
+     * */
+    private static final class CountingBar extends RoundSideProgressBar {
+
+        int invalidations, layoutRequests;
+
+        CountingBar(Context context) {
+            super(context);
+        }
+
+        void resetCounts(){
+            invalidations = 0;
+            layoutRequests = 0;
+        }
+
+        @Override
+        public void invalidate() {
+            invalidations++;
+            super.invalidate();
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            invalidations++;
+            super.invalidate(l, t, r, b);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequests++;
+            super.requestLayout();
+        }
+    }
+
+    /**
+     * Counts the invalidations, including the partial ones, and layout requests.
+     * */
+    private static final class CountingDividedBar extends DividedRoundSideProgressBar {
+
+        int invalidations, layoutRequests;
+
+        CountingDividedBar(Context context) {
+            super(context);
+        }
+
+        void resetCounts(){
+            invalidations = 0;
+            layoutRequests = 0;
+        }
+
+        @Override
+        public void invalidate() {
+            invalidations++;
+            super.invalidate();
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            invalidations++;
+            super.invalidate(l, t, r, b);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequests++;
+            super.requestLayout();
+        }
+    }
+}
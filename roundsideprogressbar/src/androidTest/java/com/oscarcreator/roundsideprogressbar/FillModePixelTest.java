@@ -0,0 +1,115 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * {@link RoundSideProgressBarDrawable#FILL_MODE_SHADER} must draw the same pixels as
+ * the clip based {@link RoundSideProgressBarDrawable#FILL_MODE_CLIP}. The anti aliasing
+ * of the two differs slightly, so a small difference per channel is allowed, and a
+ * larger one only along the fill edge.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class FillModePixelTest {
+
+    //Largest difference of a channel which counts as the same color
+    private static final int CHANNEL_TOLERANCE = 8;
+
+    private static final float[] PROGRESS = {0f, 0.01f, 0.25f, 0.333f, 0.5f, 0.77f, 0.99f, 1f};
+
+    private Context context;
+
+    @Before
+    public void setUp(){
+        context = InstrumentationRegistry.getTargetContext();
+    }
+
+    @Test
+    public void horizontalShaderFillMatchesClipFill(){
+        assertFillModesMatch(RoundSideProgressBar.CONSTANT_HORIZONTAL, 400, 60, 2);
+    }
+
+    @Test
+    public void verticalShaderFillMatchesClipFill(){
+        assertFillModesMatch(RoundSideProgressBar.CONSTANT_VERTICAL, 60, 400, 2);
+    }
+
+    @Test
+    public void shaderFillWithoutOutlineMatchesClipFill(){
+        assertFillModesMatch(RoundSideProgressBar.CONSTANT_HORIZONTAL, 333, 47, 0);
+    }
+
+    private void assertFillModesMatch(int orientation, int width, int height, float outlineWidth){
+        RoundSideProgressBar clip = newBar(orientation, outlineWidth, width, height);
+        clip.setFillMode(RoundSideProgressBarDrawable.FILL_MODE_CLIP);
+        RoundSideProgressBar shader = newBar(orientation, outlineWidth, width, height);
+        shader.setFillMode(RoundSideProgressBarDrawable.FILL_MODE_SHADER);
+
+        //At most the pixels along the fill edge may differ more than the tolerance
+        int edgePixels = orientation == RoundSideProgressBar.CONSTANT_HORIZONTAL ? height : width;
+
+        for (float fraction : PROGRESS){
+            float progress = fraction * clip.getMaxProgress();
+            clip.setProgress(progress);
+            shader.setProgress(progress);
+
+            int differing = countDifferingPixels(draw(clip), draw(shader));
+            assertTrue("progress " + fraction + ": " + differing + " pixels differ, at most "
+                    + edgePixels + " allowed", differing <= edgePixels);
+        }
+    }
+
+    private RoundSideProgressBar newBar(int orientation, float outlineWidth, int width, int height){
+        RoundSideProgressBar bar = new RoundSideProgressBar(context);
+        bar.setOrientation(orientation);
+        bar.setOutlineWidth(outlineWidth);
+        //Colors far apart so a misplaced fill edge is counted
+        bar.setOutlineColor(Color.BLACK);
+        bar.setProgressColor(Color.RED);
+        bar.setProgressBackgroundColor(Color.BLUE);
+        return TestViews.layout(bar, width, height);
+    }
+
+    private static Bitmap draw(RoundSideProgressBar bar){
+        Bitmap bitmap = TestViews.createBitmap(bar);
+        bar.onDraw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static int countDifferingPixels(Bitmap expected, Bitmap actual){
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        int[] expectedPixels = new int[width * height];
+        int[] actualPixels = new int[width * height];
+        expected.getPixels(expectedPixels, 0, width, 0, 0, width, height);
+        actual.getPixels(actualPixels, 0, width, 0, 0, width, height);
+
+        int differing = 0;
+        for (int i = 0; i < expectedPixels.length; i++){
+            if (channelDifference(expectedPixels[i], actualPixels[i]) > CHANNEL_TOLERANCE){
+                differing++;
+            }
+        }
+        return differing;
+    }
+
+    private static int channelDifference(int a, int b){
+        int alpha = Math.abs(Color.alpha(a) - Color.alpha(b));
+        int red = Math.abs(Color.red(a) - Color.red(b));
+        int green = Math.abs(Color.green(a) - Color.green(b));
+        int blue = Math.abs(Color.blue(a) - Color.blue(b));
+        return Math.max(Math.max(alpha, red), Math.max(green, blue));
+    }
+}
@@ -0,0 +1,57 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Oscar Creator
+ *
+ * The bar and outline paths are only rebuilt when the size, outline, orientation or
+ * padding changes, so redraws of a new progress allocate nothing.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class GeometryCacheTest {
+
+    private static final int CYCLES = 1000;
+
+    //The default outline of 10dp can cover a whole 60 px bar on dense screens
+    private static final float OUTLINE_WIDTH = 2;
+
+    private RoundSideProgressBar bar;
+    private Canvas canvas;
+
+    @Before
+    public void setUp(){
+        bar = new RoundSideProgressBar(InstrumentationRegistry.getTargetContext());
+        bar.setOutlineWidth(OUTLINE_WIDTH);
+        TestViews.layout(bar, 400, 60);
+        canvas = TestViews.createCanvas(bar);
+    }
+
+    @Test
+    public void progressRedrawsDoNotAllocate(){
+        assertEquals(0, AllocationCounter.countProgressDrawAllocations(bar, canvas, CYCLES));
+    }
+
+    @Test
+    public void progressRedrawsDoNotAllocateAfterGeometryChanges(){
+        bar.setOutlineWidth(6);
+        assertEquals(0, AllocationCounter.countProgressDrawAllocations(bar, canvas, CYCLES));
+
+        bar.setPadding(4, 4, 4, 4);
+        TestViews.layout(bar, 400, 60);
+        assertEquals(0, AllocationCounter.countProgressDrawAllocations(bar, canvas, CYCLES));
+
+        bar.setOrientation(RoundSideProgressBar.CONSTANT_VERTICAL);
+        TestViews.layout(bar, 60, 400);
+        canvas = TestViews.createCanvas(bar);
+        assertEquals(0, AllocationCounter.countProgressDrawAllocations(bar, canvas, CYCLES));
+    }
+}
@@ -0,0 +1,124 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.app.Instrumentation;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * Hammers {@link RoundSideProgressBar#postProgress(float)} from several threads at
+ * once. The last posted value must be the one which ends up applied, and almost all
+ * updates must be coalesced instead of redrawn.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class PostProgressStressTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 20000;
+
+    private static final long APPLY_TIMEOUT_MILLIS = 2000;
+
+    @Rule
+    public final ActivityTestRule<TestActivity> activityRule = new ActivityTestRule<>(TestActivity.class);
+
+    private Instrumentation instrumentation;
+
+    private RoundSideProgressBar bar;
+
+    @Before
+    public void setUp(){
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            TestActivity activity = activityRule.getActivity();
+            bar = new RoundSideProgressBar(activity);
+            activity.getContainer().addView(bar, new FrameLayout.LayoutParams(400, 60));
+        });
+        instrumentation.waitForIdleSync();
+    }
+
+    @Test
+    public void lastPostedValueIsApplied() throws Exception {
+        float maxProgress = bar.getMaxProgress();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++){
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++){
+                    bar.postProgress(((i + offset) % 1000) / 1000f * maxProgress);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures){
+            future.get();
+        }
+
+        //Posted after all other updates, from a background thread as well
+        float lastProgress = maxProgress * 0.4321f;
+        executor.submit(() -> bar.postProgress(lastProgress)).get();
+        executor.shutdown();
+
+        assertEquals(lastProgress, awaitProgress(lastProgress), 0f);
+
+        long posted = THREADS * UPDATES_PER_THREAD + 1;
+        long coalesced = bar.getCoalescedProgressUpdates();
+        assertTrue("Updates should be coalesced, only " + coalesced + " were", coalesced > posted / 2);
+        assertTrue(coalesced + bar.getDroppedProgressUpdates() < posted);
+    }
+
+    @Test
+    public void mainThreadPostsAreCoalescedPerFrame() throws Exception {
+        float maxProgress = bar.getMaxProgress();
+        instrumentation.runOnMainSync(() -> {
+            for (int i = 1; i <= 1000; i++){
+                bar.postProgress(i / 1000f * maxProgress);
+            }
+        });
+
+        assertEquals(maxProgress, awaitProgress(maxProgress), 0f);
+        //Only the first post of the frame is scheduled, the rest replace its value
+        assertEquals(999, bar.getCoalescedProgressUpdates());
+    }
+
+    /**
+     * Waits for the progress of the main thread to become the expected value.
+     *
+     * @return the progress when it's reached or the timeout has passed
+     * */
+    private float awaitProgress(float expected) throws InterruptedException {
+        float[] progress = new float[1];
+        long deadline = System.currentTimeMillis() + APPLY_TIMEOUT_MILLIS;
+        do {
+            instrumentation.runOnMainSync(() -> progress[0] = bar.getProgress());
+            if (progress[0] == expected){
+                break;
+            }
+            Thread.sleep(16);
+        } while (System.currentTimeMillis() < deadline);
+        return progress[0];
+    }
+}
@@ -0,0 +1,206 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.app.Instrumentation;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Oscar Creator
+ *
+ * Rebinds one attached progressbar 10,000 times like a recycled row of a long list,
+ * while animations and posted progress of the previous binding are still pending.
+ * Nothing of an earlier binding may show up after the last one, and the progressbar
+ * must not be kept alive by the animation clock or the posted progress.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class RecycleBindStressTest {
+
+    private static final int CYCLES = 10000;
+    private static final int CYCLES_PER_BATCH = 1000;
+
+    private static final long FRAMES_MILLIS = 200;
+
+    @Rule
+    public final ActivityTestRule<TestActivity> activityRule = new ActivityTestRule<>(TestActivity.class);
+
+    private Instrumentation instrumentation;
+
+    private DividedRoundSideProgressBar bar;
+
+    private DividedRoundSideProgressBar.State[] states;
+
+    @Before
+    public void setUp(){
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            TestActivity activity = activityRule.getActivity();
+            bar = new DividedRoundSideProgressBar(activity);
+            bar.setOutlineWidth(2);
+            bar.setDividerWidth(2);
+            activity.getContainer().addView(bar, new FrameLayout.LayoutParams(400, 60));
+            states = createStates(bar);
+        });
+        instrumentation.waitForIdleSync();
+    }
+
+    @Test
+    public void rebindingLeavesNoStaleFramesOrLeaks() throws Exception {
+        float maxProgress = bar.getMaxProgress();
+
+        for (int batch = 0; batch < CYCLES / CYCLES_PER_BATCH; batch++){
+            int first = batch * CYCLES_PER_BATCH;
+            instrumentation.runOnMainSync(() -> {
+                for (int i = first; i < first + CYCLES_PER_BATCH; i++){
+                    //Left running and pending by the previous binding
+                    bar.setProgress((i % 97) / 97f * maxProgress, true);
+                    bar.setSecondaryProgress(maxProgress, true);
+                    bar.postProgress((i % 89) / 89f * maxProgress);
+
+                    bar.bind(states[i % states.length]);
+                }
+            });
+            //Let some animation frames run between the batches
+            Thread.sleep(20);
+        }
+
+        //Frames of the old animations and posted progress would arrive by now
+        Thread.sleep(FRAMES_MILLIS);
+        DividedRoundSideProgressBar.State expected = states[(CYCLES - 1) % states.length];
+        DividedRoundSideProgressBar.State[] actual = new DividedRoundSideProgressBar.State[1];
+        instrumentation.runOnMainSync(() -> actual[0] = bar.getState());
+        assertState(expected, actual[0]);
+        assertEquals(0, getActiveClockListeners());
+
+        WeakReference<DividedRoundSideProgressBar> reference = new WeakReference<>(bar);
+        instrumentation.runOnMainSync(() -> activityRule.getActivity().getContainer().removeView(bar));
+        bar = null;
+        instrumentation.waitForIdleSync();
+        for (int i = 0; i < 10 && reference.get() != null; i++){
+            Runtime.getRuntime().gc();
+            Runtime.getRuntime().runFinalization();
+            Thread.sleep(50);
+        }
+        assertNull("The progressbar is still referenced after it was removed", reference.get());
+    }
+
+    @Test
+    public void rebindingDoesNotAllocate(){
+        //Both states share the gradient, most of the rest differs
+        DividedRoundSideProgressBar.State first = states[0];
+        DividedRoundSideProgressBar.State second = copyWithGradient(first);
+
+        int[] allocations = new int[1];
+        instrumentation.runOnMainSync(() -> {
+            bar.bind(first);
+            bar.bind(second);
+
+            allocations[0] = AllocationCounter.countAllocations(() -> {
+                for (int i = 0; i < CYCLES; i++){
+                    bar.bind(i % 2 == 0 ? first : second);
+                }
+            });
+        });
+        assertEquals(0, allocations[0]);
+    }
+
+    private static DividedRoundSideProgressBar.State[] createStates(DividedRoundSideProgressBar bar){
+        float maxProgress = bar.getMaxProgress();
+
+        DividedRoundSideProgressBar.State gradient = bar.getState();
+        gradient.progress = maxProgress * 0.1f;
+        gradient.secondaryProgress = maxProgress * 0.3f;
+        gradient.dividers = 4;
+        gradient.progressFill = RoundSideProgressBarDrawable.PROGRESS_FILL_GRADIENT;
+        gradient.progressColors = new int[]{Color.GREEN, Color.YELLOW, Color.RED};
+        gradient.progressColorPositions = null;
+
+        DividedRoundSideProgressBar.State bands = bar.getState();
+        bands.progress = maxProgress * 0.8f;
+        bands.dividers = 9;
+        bands.progressFill = RoundSideProgressBarDrawable.PROGRESS_FILL_BANDS;
+        bands.progressColors = new int[]{Color.GREEN, Color.YELLOW, Color.RED};
+        bands.progressColorPositions = new float[]{0f, 0.6f, 0.85f};
+        bands.fillEdgeSteps = 2;
+
+        DividedRoundSideProgressBar.State solid = bar.getState();
+        solid.progress = maxProgress * 0.5f;
+        solid.dividers = 0;
+        solid.progressColor = Color.MAGENTA;
+        solid.fillMode = RoundSideProgressBarDrawable.FILL_MODE_SHADER;
+        solid.staticLayerCacheEnabled = true;
+
+        return new DividedRoundSideProgressBar.State[]{gradient, bands, solid};
+    }
+
+    private static DividedRoundSideProgressBar.State copyWithGradient(DividedRoundSideProgressBar.State gradient){
+        DividedRoundSideProgressBar.State copy = new DividedRoundSideProgressBar.State();
+        copy.maxProgress = gradient.maxProgress;
+        copy.progress = gradient.maxProgress * 0.7f;
+        copy.secondaryProgress = 0f;
+        //Same outline and orientation, a layout request isn't part of the bind
+        copy.outlineWidth = gradient.outlineWidth;
+        copy.outlineColor = Color.BLACK;
+        copy.progressColor = Color.BLUE;
+        copy.progressBackgroundColor = Color.LTGRAY;
+        copy.secondaryProgressColor = Color.GRAY;
+        copy.orientation = gradient.orientation;
+        copy.indeterminate = false;
+        copy.indeterminateStyle = gradient.indeterminateStyle;
+        copy.indeterminateDuration = gradient.indeterminateDuration * 2;
+        copy.animationSpeed = gradient.animationSpeed * 2;
+        copy.fillMode = RoundSideProgressBarDrawable.FILL_MODE_SHADER;
+        copy.fillEdgeSteps = 3;
+        //Enabling the static layer cache creates its layers
+        copy.staticLayerCacheEnabled = gradient.staticLayerCacheEnabled;
+        copy.progressFill = gradient.progressFill;
+        copy.progressColors = gradient.progressColors.clone();
+        copy.progressColorPositions = gradient.progressColorPositions;
+        copy.dividers = 12;
+        copy.dividerWidth = gradient.dividerWidth + 1;
+        copy.dividerColor = Color.WHITE;
+        copy.dividerDecimateSpacing = gradient.dividerDecimateSpacing;
+        copy.dividerPatternSpacing = gradient.dividerPatternSpacing;
+        copy.dividerHideSpacing = gradient.dividerHideSpacing;
+        return copy;
+    }
+
+    private static void assertState(DividedRoundSideProgressBar.State expected, DividedRoundSideProgressBar.State actual){
+        assertEquals(expected.maxProgress, actual.maxProgress, 0f);
+        assertEquals(expected.progress, actual.progress, 0f);
+        assertEquals(expected.secondaryProgress, actual.secondaryProgress, 0f);
+        assertEquals(expected.outlineWidth, actual.outlineWidth, 0f);
+        assertEquals(expected.outlineColor, actual.outlineColor);
+        assertEquals(expected.progressColor, actual.progressColor);
+        assertEquals(expected.progressBackgroundColor, actual.progressBackgroundColor);
+        assertEquals(expected.orientation, actual.orientation);
+        assertEquals(expected.fillMode, actual.fillMode);
+        assertEquals(expected.fillEdgeSteps, actual.fillEdgeSteps);
+        assertEquals(expected.staticLayerCacheEnabled, actual.staticLayerCacheEnabled);
+        assertEquals(expected.progressFill, actual.progressFill);
+        assertArrayEquals(expected.progressColors, actual.progressColors);
+        assertArrayEquals(expected.progressColorPositions, actual.progressColorPositions, 0f);
+        assertEquals(expected.dividers, actual.dividers);
+        assertEquals(expected.dividerWidth, actual.dividerWidth, 0f);
+        assertEquals(expected.dividerColor, actual.dividerColor);
+    }
+
+    private int getActiveClockListeners(){
+        int[] count = new int[1];
+        instrumentation.runOnMainSync(() -> count[0] = ProgressAnimationClock.getInstance().getActiveCount());
+        return count[0];
+    }
+}
@@ -0,0 +1,119 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * Counts the redraws {@link RoundSideProgressBar#getSuppressedProgressRedraws()}
+ * avoids for typical streams of progress updates. A redraw is only needed when the
+ * fill edge moves to another step, so a stream can't cause more redraws than there
+ * are steps along the bar. The counts are logged with the tag {@link #TAG}.
+ * */
+@RunWith(AndroidJUnit4.class)
+public class SuppressedRedrawTest {
+
+    private static final String TAG = "SuppressedRedrawTest";
+
+    private static final float OUTLINE_WIDTH = 2;
+
+    private Context context;
+
+    @Before
+    public void setUp(){
+        context = InstrumentationRegistry.getTargetContext();
+    }
+
+    @Test
+    public void largeMaxProgressOnShortBar(){
+        //A byte counter of a 100 kB download on a 100 px bar
+        RoundSideProgressBar bar = newBar(100, 20, RoundSideProgressBar.CONSTANT_HORIZONTAL);
+        bar.setMaxProgress(100000);
+        int redraws = countRedraws("100000 steps on 100 px", bar, 100000);
+
+        assertTrue(redraws <= 100 + 1);
+        assertTrue(bar.getSuppressedProgressRedraws() >= 100000 - 101);
+    }
+
+    @Test
+    public void fineUpdatesOnLongBar(){
+        //Tenths of a percent on a 400 px bar, less than half a pixel each
+        RoundSideProgressBar bar = newBar(400, 40, RoundSideProgressBar.CONSTANT_HORIZONTAL);
+        bar.setMaxProgress(1000);
+        int redraws = countRedraws("1000 steps on 400 px", bar, 1000);
+
+        assertTrue(redraws <= 400 + 1);
+        assertTrue(bar.getSuppressedProgressRedraws() >= 1000 - 401);
+    }
+
+    @Test
+    public void verticalBar(){
+        RoundSideProgressBar bar = newBar(20, 100, RoundSideProgressBar.CONSTANT_VERTICAL);
+        bar.setMaxProgress(10000);
+        int redraws = countRedraws("10000 steps on 100 px vertical", bar, 10000);
+
+        assertTrue(redraws <= 100 + 1);
+    }
+
+    @Test
+    public void subPixelStepsRedrawMore(){
+        RoundSideProgressBar bar = newBar(100, 20, RoundSideProgressBar.CONSTANT_HORIZONTAL);
+        bar.setMaxProgress(100000);
+        bar.setFillEdgeSteps(4);
+        int redraws = countRedraws("100000 steps on 100 px, 4 steps per pixel", bar, 100000);
+
+        assertTrue(redraws > 100 + 1);
+        assertTrue(redraws <= 4 * 100 + 1);
+    }
+
+    @Test
+    public void unroundedEdgeRedrawsEveryChange(){
+        RoundSideProgressBar bar = newBar(100, 20, RoundSideProgressBar.CONSTANT_HORIZONTAL);
+        bar.setMaxProgress(1000);
+        bar.setFillEdgeSteps(0);
+        int redraws = countRedraws("1000 steps on 100 px, unrounded", bar, 1000);
+
+        assertEquals(1000, redraws);
+        assertEquals(0, bar.getSuppressedProgressRedraws());
+    }
+
+    private RoundSideProgressBar newBar(int width, int height, int orientation){
+        RoundSideProgressBar bar = new RoundSideProgressBar(context);
+        bar.setOrientation(orientation);
+        bar.setOutlineWidth(OUTLINE_WIDTH);
+        return TestViews.layout(bar, width, height);
+    }
+
+    /**
+     * Sets the progress from 1 to updates, one step at a time, after drawing the bar
+     * once so its geometry is known.
+     *
+     * @return the quantity of updates which weren't suppressed
+     * */
+    private static int countRedraws(String name, RoundSideProgressBar bar, int updates){
+        bar.setProgress(0);
+        bar.onDraw(TestViews.createCanvas(bar));
+        bar.resetProgressUpdateCounters();
+
+        float maxProgress = bar.getMaxProgress();
+        for (int i = 1; i <= updates; i++){
+            bar.setProgress(i / (float) updates * maxProgress);
+        }
+
+        long suppressed = bar.getSuppressedProgressRedraws();
+        int redraws = (int) (updates - suppressed);
+        Log.i(TAG, name + ": " + updates + " updates, " + redraws + " redraws, "
+                + suppressed + " suppressed");
+        return redraws;
+    }
+}
@@ -0,0 +1,32 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.widget.FrameLayout;
+
+/**
+ * @author Oscar Creator
+ *
+ * Empty activity which the tests attach their progressbars to, so they are shown
+ * in a window and receive frames.
+ * */
+public class TestActivity extends Activity {
+
+    private FrameLayout container;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        container = new FrameLayout(this);
+        setContentView(container);
+    }
+
+    /**
+     * Returns the layout the progressbars are added to.
+     *
+     * @return the content layout
+     * */
+    public FrameLayout getContainer(){
+        return container;
+    }
+}
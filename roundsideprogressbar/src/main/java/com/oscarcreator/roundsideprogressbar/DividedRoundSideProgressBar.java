@@ -1,13 +1,9 @@
 package com.oscarcreator.roundsideprogressbar;
 
 import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Region;
 import android.support.annotation.Nullable;
-import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
 
 import java.util.ArrayList;
@@ -15,28 +11,48 @@ import java.util.List;
 
 public class DividedRoundSideProgressBar extends RoundSideProgressBar {
 
+    /**
+     * Listener for when the progress moves into another segment. The segments are the
+     * parts of the progressbar between the dividers, counted from the start of the
+     * progress.
+     * */
+    public interface OnSegmentChangeListener {
+
+        /**
+         * Called when the progress moves into another segment.
+         *
+         * @param progressBar the progressbar which progress changed
+         * @param segment the new segment, from 0 to the quantity of dividers
+         * */
+        void onSegmentChanged(DividedRoundSideProgressBar progressBar, int segment);
+    }
+
     protected static final int DEFAULT_DIVIDER_COLOR_ID = R.color.defaultDividerColor;
 
+    //Copies of the drawable's values, kept for subclasses. Changing them has no effect,
+    //use the setters
     protected int dividers;
 
+    protected float dividerWidth;
+
+    //Shared with the drawable
     protected Paint dividerPaint;
 
-    protected float dividerWidth;
+    private int currentSegment = -1;
+
+    private OnSegmentChangeListener onSegmentChangeListener;
 
 
     public DividedRoundSideProgressBar(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
-        init(context, attrs);
     }
 
     public DividedRoundSideProgressBar(Context context) {
         super(context);
-        init(context, null);
     }
 
     public DividedRoundSideProgressBar(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init(context, attrs);
     }
 
 
@@ -46,9 +62,11 @@ public class DividedRoundSideProgressBar extends RoundSideProgressBar {
      * @param dividers quantity of dividers
      * */
     public void setDividers(int dividers){
-        if (dividers != this.dividers){
-            this.dividers = dividers;
-            this.invalidate();
+        if (dividers != getDividers()){
+            drawable.setDividers(dividers);
+            this.dividers = drawable.getDividers();
+            dispatchSegmentChange();
+            scheduleInvalidate();
         }
     }
 
@@ -59,9 +77,11 @@ public class DividedRoundSideProgressBar extends RoundSideProgressBar {
      * @param width the width of the dividers
      * */
     public void setDividerWidth(float width){
-        if (width != dividerWidth){
-            this.dividerWidth = width;
-            this.invalidate();
+        if (width != getDividerWidth()){
+            drawable.setDividerWidth(width);
+            this.dividerWidth = drawable.getDividerWidth();
+            dispatchSegmentChange();
+            scheduleInvalidate();
         }
     }
 
@@ -72,20 +92,92 @@ public class DividedRoundSideProgressBar extends RoundSideProgressBar {
      * @param color the color for the dividers
      * */
     public void setDividerColor(int color){
-        if (color != dividerPaint.getColor()){
-            dividerPaint.setColor(color);
-            this.invalidate();
+        if (color != getDividerColor()){
+            drawable.setDividerColor(color);
+            scheduleInvalidate();
         }
     }
 
 
+    /**
+     * Set's the divider spacings, in pixels, below which the dividers are drawn with
+     * less detail. See {@link RoundSideProgressBarDrawable#setDividerLodSpacing(float, float, float)}.
+     *
+     * @param decimateSpacing the spacing below which dividers are skipped
+     * @param patternSpacing the spacing below which dividers are drawn as a pattern
+     * @param hideSpacing the spacing below which dividers aren't drawn
+     * */
+    public void setDividerLodSpacing(float decimateSpacing, float patternSpacing, float hideSpacing){
+        if (decimateSpacing != drawable.getDividerDecimateSpacing()
+                || patternSpacing != drawable.getDividerPatternSpacing()
+                || hideSpacing != drawable.getDividerHideSpacing()){
+            drawable.setDividerLodSpacing(decimateSpacing, patternSpacing, hideSpacing);
+            scheduleInvalidate();
+        }
+    }
+
+    /**
+     * Returns how the dividers are drawn at the current size.
+     *
+     * @return one of the DIVIDER_LOD constants of {@link RoundSideProgressBarDrawable}
+     * */
+    public int getDividerLod(){
+        ensureGeometry();
+        return drawable.getDividerLod();
+    }
+
+    /**
+     * Set's the listener which is called when the progress moves into another segment.
+     *
+     * @param listener the listener or null to remove it
+     * */
+    public void setOnSegmentChangeListener(@Nullable OnSegmentChangeListener listener){
+        this.onSegmentChangeListener = listener;
+    }
+
+    /**
+     * Returns the segment the progress falls into. Segment 0 is before the first divider
+     * and the last segment, equal to the quantity of dividers, is after the last divider.
+     * A progress over a divider belongs to the segment before it.
+     *
+     * @param progress the progress to find the segment of
+     * @return the segment index from 0 to the quantity of dividers
+     * */
+    public int getSegment(float progress){
+        ensureGeometry();
+        return drawable.getSegment(progress);
+    }
+
+    /**
+     * Returns the segment the current progress falls into.
+     *
+     * @return the current segment index
+     * @see #getSegment(float)
+     * */
+    public int getCurrentSegment(){
+        return getSegment(getProgress());
+    }
+
+    /**
+     * Returns the start of the divider along the progressbar, in view coordinates.
+     * This is the x coordinate when horizontal and the y coordinate when vertical.
+     * The dividers are ordered from left to right and from top to bottom.
+     *
+     * @param divider index of the divider, from 0 to the quantity of dividers - 1
+     * @return the start coordinate of the divider
+     * */
+    public float getDividerPosition(int divider){
+        ensureGeometry();
+        return drawable.getDividerPosition(divider);
+    }
+
     /**
      * Returns the quantity of dividers currently using.
      *
      * @return quantity of dividers
      * */
     public int getDividers() {
-        return dividers;
+        return drawable.getDividers();
     }
 
 
@@ -95,7 +187,7 @@ public class DividedRoundSideProgressBar extends RoundSideProgressBar {
      * @return width of the dividers
      * */
     public float getDividerWidth() {
-        return dividerWidth;
+        return drawable.getDividerWidth();
     }
 
 
@@ -105,72 +197,215 @@ public class DividedRoundSideProgressBar extends RoundSideProgressBar {
      * @return color of dividers
      * */
     public int getDividerColor() {
-        return dividerPaint.getColor();
+        return drawable.getDividerColor();
     }
 
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+    public State getState() {
+        State state = new State();
+        saveState(state);
+        return state;
+    }
 
+    @Override
+    protected void saveState(RoundSideProgressBar.State state) {
+        super.saveState(state);
+        if (state instanceof State){
+            State dividedState = (State) state;
+            dividedState.dividers = getDividers();
+            dividedState.dividerWidth = getDividerWidth();
+            dividedState.dividerColor = getDividerColor();
+            dividedState.dividerDecimateSpacing = drawable.getDividerDecimateSpacing();
+            dividedState.dividerPatternSpacing = drawable.getDividerPatternSpacing();
+            dividedState.dividerHideSpacing = drawable.getDividerHideSpacing();
+        }
+    }
 
+    @Override
+    protected void applyState(RoundSideProgressBar.State state) {
+        super.applyState(state);
+        if (state instanceof State){
+            State dividedState = (State) state;
+            setDividers(dividedState.dividers);
+            setDividerWidth(dividedState.dividerWidth);
+            setDividerColor(dividedState.dividerColor);
+            setDividerLodSpacing(dividedState.dividerDecimateSpacing,
+                    dividedState.dividerPatternSpacing, dividedState.dividerHideSpacing);
+        }
+    }
 
-        if (getOrientation() == CONSTANT_HORIZONTAL) {
-            Path p = composeRoundedRect(rectView, CONSTANT_HORIZONTAL);
+    /**
+     * Snapshot of the values of a divided progressbar, including the dividers.
+     * */
+    public static class State extends RoundSideProgressBar.State {
 
-            float spacing = (viewWidth - (dividerWidth * dividers)) / (dividers + 1);
-            for (int i = 1; i <= dividers; i++){
-                float x = rectView.left + spacing * i + (dividerWidth * (i - 1));
-                canvas.save();
-                canvas.clipRect(x, rectView.top,
-                        x + dividerWidth, rectView.bottom);
-                canvas.drawPath(p, dividerPaint);
-                canvas.restore();
-            }
+        public int dividers;
 
+        public float dividerWidth;
 
-        } else {
-            Path p = composeRoundedRect(rectView, CONSTANT_VERTICAL);
+        public int dividerColor;
 
-            float spacing = (viewHeight - (dividerWidth * dividers)) / (dividers + 1);
-            for (int i = 1; i <= dividers; i++){
-                float y = rectView.top + spacing * i + (dividerWidth * (i - 1));
-                canvas.save();
-                canvas.clipRect(rectView.left, y,
-                        rectView.right, y + dividerWidth);
-                canvas.drawPath(p, dividerPaint);
-                canvas.restore();
-            }
+        //Divider spacings of the level of detail, in pixels
+        public float dividerDecimateSpacing, dividerPatternSpacing, dividerHideSpacing;
+    }
+
+    @Override
+    public Editor edit() {
+        beginEdit();
+        return new Editor();
+    }
+
+    /**
+     * Records property changes of the progressbar and its dividers, returned by
+     * {@link #edit()}.
+     * */
+    public class Editor extends RoundSideProgressBar.Editor {
+
+        protected Editor() {}
+
+        public Editor setDividers(int dividers){
+            DividedRoundSideProgressBar.this.setDividers(dividers);
+            return this;
+        }
+
+        public Editor setDividerWidth(float width){
+            DividedRoundSideProgressBar.this.setDividerWidth(width);
+            return this;
+        }
+
+        public Editor setDividerColor(int color){
+            DividedRoundSideProgressBar.this.setDividerColor(color);
+            return this;
+        }
+
+        @Override
+        public Editor setProgress(float progress) {
+            super.setProgress(progress);
+            return this;
+        }
+
+        @Override
+        public Editor setMaxProgress(float maxProgress) {
+            super.setMaxProgress(maxProgress);
+            return this;
+        }
+
+        @Override
+        public Editor setOutlineWidth(float outlineWidth) {
+            super.setOutlineWidth(outlineWidth);
+            return this;
+        }
+
+        @Override
+        public Editor setOutlineColor(int outlineColor) {
+            super.setOutlineColor(outlineColor);
+            return this;
+        }
+
+        @Override
+        public Editor setProgressColor(int progressColor) {
+            super.setProgressColor(progressColor);
+            return this;
+        }
+
+        @Override
+        public Editor setProgressBackgroundColor(int progressBackgroundColor) {
+            super.setProgressBackgroundColor(progressBackgroundColor);
+            return this;
+        }
+
+        @Override
+        public Editor setOrientation(int orientation) {
+            super.setOrientation(orientation);
+            return this;
+        }
+
+        @Override
+        public Editor setFillMode(int mode) {
+            super.setFillMode(mode);
+            return this;
+        }
+
+        @Override
+        public Editor setSecondaryProgress(float secondaryProgress) {
+            super.setSecondaryProgress(secondaryProgress);
+            return this;
         }
 
+        @Override
+        public Editor setSecondaryProgressColor(int secondaryProgressColor) {
+            super.setSecondaryProgressColor(secondaryProgressColor);
+            return this;
+        }
+
+        @Override
+        public Editor setIndeterminate(boolean indeterminate) {
+            super.setIndeterminate(indeterminate);
+            return this;
+        }
+
+        @Override
+        public Editor setStaticLayerCacheEnabled(boolean enabled) {
+            super.setStaticLayerCacheEnabled(enabled);
+            return this;
+        }
     }
 
     @Override
-    protected void init(Context context, AttributeSet attrs) {
-        super.init(context, attrs);
-
-        TypedArray typedArray = context.getTheme().obtainStyledAttributes(attrs,
-                R.styleable.DividedRoundSideProgressBar,
-                R.attr.dividedRoundSideProgressBarStyle,
-                R.style.DividedRoundSideProgressBar);
-        int dividerColor;
-        try {
+    protected void onProgressChanged(float oldProgress, float newProgress) {
+        super.onProgressChanged(oldProgress, newProgress);
+        dispatchSegmentChange();
+    }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        dispatchSegmentChange();
+    }
 
-            dividers = typedArray.getInteger(R.styleable.DividedRoundSideProgressBar_dividers,
-                    context.getResources().getInteger(R.integer.defDividers));
+    /**
+     * Set's the maxProgress of the progressbar. The segment of the progress moves
+     * with the maxProgress, so the listener is notified if it changes.
+     *
+     * @param newMaxProgress the new maxProgress
+     * */
+    @Override
+    public void setMaxProgress(float newMaxProgress) {
+        if (getMaxProgress() != newMaxProgress) {
+            super.setMaxProgress(newMaxProgress);
+            dispatchSegmentChange();
+        }
+    }
 
-            dividerWidth = typedArray.getDimension(R.styleable.DividedRoundSideProgressBar_dividerWidth,
-                    context.getResources().getDimension(R.dimen.defDividerWidth));
+    private void dispatchSegmentChange(){
+        if (onSegmentChangeListener == null){
+            return;
+        }
 
-            dividerColor = typedArray.getColor(R.styleable.DividedRoundSideProgressBar_dividerColor,
-                    ContextCompat.getColor(context, DEFAULT_DIVIDER_COLOR_ID));
-        } finally {
-            typedArray.recycle();
+        int segment = getCurrentSegment();
+        if (segment != currentSegment){
+            boolean known = currentSegment != -1;
+            currentSegment = segment;
+            if (known){
+                onSegmentChangeListener.onSegmentChanged(this, segment);
+            }
         }
+    }
+
+    @Override
+    protected void init(Context context, AttributeSet attrs) {
+        super.init(context, attrs);
+
+        StyleCache.DividerStyle style = StyleCache.getDividerStyle(context, attrs);
+
+        drawable.setDividers(style.dividers);
+        drawable.setDividerWidth(style.dividerWidth);
+        drawable.setDividerColor(style.dividerColor);
 
-        dividerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        dividerPaint.setColor(dividerColor);
+        dividers = drawable.getDividers();
+        dividerWidth = drawable.getDividerWidth();
+        dividerPaint = drawable.dividerPaint;
 
     }
 }
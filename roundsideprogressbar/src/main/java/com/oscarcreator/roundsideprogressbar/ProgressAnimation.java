@@ -0,0 +1,140 @@
+package com.oscarcreator.roundsideprogressbar;
+
+/**
+ * @author Oscar Creator
+ *
+ * State of one animated progress value. Starting from rest the value follows the
+ * accelerate decelerate easing of ValueAnimator, when retargeted mid-flight it follows
+ * a cubic hermite curve starting with the previous velocity so there is no jerk.
+ * */
+final class ProgressAnimation {
+
+    //Values the animation interpolates between
+    private float from, to;
+
+    private long startNanos, durationNanos;
+
+    //Time of the last frame, where a retarget continues from
+    private long frameNanos;
+
+    //Fraction of the last frame and the start slope after a retarget mid-flight
+    private float fraction, startSlope;
+
+    //Fraction to continue from after a pause
+    private float resumeFraction;
+
+    private boolean running;
+
+    /**
+     * Starts animating from the current value to the target. A running animation is
+     * retargeted and continues with its current velocity.
+     *
+     * @param from the current value
+     * @param to the target value
+     * @param durationNanos the duration of the animation
+     * */
+    void start(float from, float to, long durationNanos){
+        //Continue with the current velocity, and from the time of the last frame, when
+        //retargeting mid-flight. Otherwise the next frame would repeat the current value
+        boolean retarget = running && startNanos >= 0;
+        float velocity = running ? velocity() : 0f;
+
+        this.from = from;
+        this.to = to;
+        this.durationNanos = durationNanos;
+        this.startNanos = retarget ? frameNanos : -1;
+        this.fraction = 0f;
+        this.startSlope = velocity * durationNanos;
+        this.resumeFraction = 0f;
+        this.running = true;
+    }
+
+    /**
+     * Pauses the animation at the last frame. It continues from there on the next
+     * call to {@link #advance(long, float)}, no matter how much time has passed.
+     * */
+    void pause(){
+        if (running && startNanos >= 0){
+            resumeFraction = fraction;
+            startNanos = -1;
+        }
+    }
+
+    /**
+     * Stops the animation where it is.
+     * */
+    void cancel(){
+        running = false;
+    }
+
+    boolean isRunning(){
+        return running;
+    }
+
+    /**
+     * Returns the value the animation ends at.
+     *
+     * @return the target value
+     * */
+    float getTarget(){
+        return to;
+    }
+
+    /**
+     * Advances the animation to the frame time and returns the value of the frame.
+     * The animation stops when the target is reached.
+     *
+     * @param frameTimeNanos the time of the frame
+     * @param maxValue the value is kept between 0 and maxValue
+     * @return the value at the frame time
+     * */
+    float advance(long frameTimeNanos, float maxValue){
+        if (startNanos < 0){
+            startNanos = frameTimeNanos - (long) (resumeFraction * durationNanos);
+        }
+        frameNanos = frameTimeNanos;
+
+        float u = durationNanos > 0
+                ? Math.min((frameTimeNanos - startNanos) / (float) durationNanos, 1f)
+                : 1f;
+        if (u >= 1f){
+            running = false;
+            return to;
+        }
+
+        fraction = u;
+        if (startSlope == 0f){
+            return from + (to - from) * ((float) Math.cos((u + 1) * Math.PI) / 2f + 0.5f);
+        }
+
+        float u2 = u * u;
+        float u3 = u2 * u;
+        float value = from * (2 * u3 - 3 * u2 + 1)
+                + startSlope * (u3 - 2 * u2 + u)
+                + to * (-2 * u3 + 3 * u2);
+        return Math.max(0f, Math.min(value, maxValue));
+    }
+
+    /**
+     * Returns the velocity of the running animation at the last frame.
+     *
+     * @return velocity in value per nanosecond
+     * */
+    private float velocity(){
+        if (durationNanos <= 0){
+            return 0f;
+        }
+
+        float u = fraction;
+        float slope;
+        if (startSlope == 0f){
+            slope = (to - from) * (float) (Math.PI / 2 * Math.sin(u * Math.PI));
+        }else{
+            float u2 = u * u;
+            slope = from * (6 * u2 - 6 * u)
+                    + startSlope * (3 * u2 - 4 * u + 1)
+                    + to * (-6 * u2 + 6 * u);
+        }
+        return slope / durationNanos;
+    }
+}
@@ -0,0 +1,149 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * @author Oscar Creator
+ *
+ * Drives the progress animations of all progressbars from one
+ * {@link Choreographer.FrameCallback}. Every registered listener is advanced
+ * once per vsync and dropped as soon as it reports that it has settled.
+ * Must only be used from the main thread.
+ *
+ * The frames come from a {@link FrameSource}, the {@link Choreographer} of the main
+ * thread unless another source is given, so tests can drive the frames by hand.
+ * */
+final class ProgressAnimationClock implements Choreographer.FrameCallback {
+
+    /**
+     * Receives one call per frame while registered.
+     * */
+    interface FrameListener {
+
+        /**
+         * Advances the animation to the given frame time.
+         *
+         * @param frameTimeNanos the frame time from the {@link FrameSource}
+         * @return true to stay registered for the next frame, false once settled
+         * */
+        boolean doAnimationFrame(long frameTimeNanos);
+    }
+
+    /**
+     * Delivers the frames to the clock.
+     * */
+    interface FrameSource {
+
+        /**
+         * Calls {@link ProgressAnimationClock#doFrame(long)} once on the next frame.
+         *
+         * @param clock the clock to deliver the frame to
+         * */
+        void postFrame(ProgressAnimationClock clock);
+    }
+
+    /**
+     * The default frame source, the {@link Choreographer} of the creating thread.
+     * */
+    private static final class ChoreographerFrameSource implements FrameSource {
+
+        private final Choreographer choreographer = Choreographer.getInstance();
+
+        @Override
+        public void postFrame(ProgressAnimationClock clock) {
+            choreographer.postFrameCallback(clock);
+        }
+    }
+
+    private static ProgressAnimationClock instance;
+
+    private final FrameSource frameSource;
+
+    private final ArrayList<FrameListener> listeners = new ArrayList<>();
+
+    private boolean callbackPosted;
+
+    private ProgressAnimationClock() {
+        this(new ChoreographerFrameSource());
+    }
+
+    /**
+     * Creates a clock driven by the given frame source instead of the Choreographer.
+     *
+     * @param frameSource the source of the frames
+     * */
+    ProgressAnimationClock(FrameSource frameSource) {
+        this.frameSource = frameSource;
+    }
+
+    /**
+     * Returns the clock shared by all progressbars.
+     *
+     * @return the shared clock
+     * */
+    static ProgressAnimationClock getInstance(){
+        //The Choreographer is per thread, the clock has to get the one of the main thread
+        if (Looper.myLooper() != Looper.getMainLooper()){
+            throw new IllegalStateException("ProgressAnimationClock can only be used from the main thread.");
+        }
+        if (instance == null){
+            instance = new ProgressAnimationClock();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a listener for the coming frames. The caller is responsible for not
+     * registering the same listener twice, it's unregistered by returning false from
+     * {@link FrameListener#doAnimationFrame(long)}.
+     *
+     * @param listener the listener to advance every frame
+     * */
+    void register(FrameListener listener){
+        listeners.add(listener);
+        if (!callbackPosted){
+            callbackPosted = true;
+            frameSource.postFrame(this);
+        }
+    }
+
+    /**
+     * Returns the number of listeners which will be advanced on the next frame.
+     *
+     * @return quantity of running animations
+     * */
+    int getActiveCount(){
+        return listeners.size();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        callbackPosted = false;
+
+        //Advance and compact in place, settled listeners are dropped
+        int size = listeners.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++){
+            FrameListener listener = listeners.get(i);
+            if (listener.doAnimationFrame(frameTimeNanos)){
+                listeners.set(kept++, listener);
+            }
+        }
+
+        //Keep the listeners registered during this frame
+        for (int i = size; i < listeners.size(); i++){
+            listeners.set(kept++, listeners.get(i));
+        }
+        for (int i = listeners.size() - 1; i >= kept; i--){
+            listeners.remove(i);
+        }
+
+        if (kept > 0 && !callbackPosted){
+            callbackPosted = true;
+            frameSource.postFrame(this);
+        }
+    }
+}
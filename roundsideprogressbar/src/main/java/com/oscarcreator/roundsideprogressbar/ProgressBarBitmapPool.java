@@ -0,0 +1,144 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+
+/**
+ * @author Oscar Creator
+ *
+ * Pool of reusable ARGB_8888 bitmaps for {@link ProgressBarRenderer}. Bitmaps which
+ * are no longer used are handed back with {@link #release(Bitmap)} and returned
+ * again, cleared, by {@link #obtain(int, int)} for the same size. The pool never
+ * keeps more than its max size in bytes, the oldest bitmaps are recycled first.
+ *
+ * The pool is safe to use from any thread.
+ * */
+public final class ProgressBarBitmapPool {
+
+    //Default max size, room for about a hundred notification sized bars
+    private static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private final long maxBytes;
+
+    //Ordered from the oldest to the most recently released
+    private final ArrayList<Bitmap> bitmaps = new ArrayList<>();
+
+    private long currentBytes;
+
+    public ProgressBarBitmapPool() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a pool which keeps at most maxBytes of bitmaps.
+     *
+     * @param maxBytes the max size of the pooled bitmaps in bytes
+     * */
+    public ProgressBarBitmapPool(long maxBytes) {
+        if (maxBytes < 0){
+            throw new IllegalArgumentException("maxBytes is not allowed to have a negative value. " +
+                    "Current value: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a transparent bitmap of the size, from the pool when there is one.
+     *
+     * @param width the width of the bitmap
+     * @param height the height of the bitmap
+     * @return a cleared bitmap of the size
+     * */
+    public Bitmap obtain(int width, int height){
+        Bitmap bitmap = null;
+        synchronized (bitmaps){
+            for (int i = bitmaps.size() - 1; i >= 0; i--){
+                Bitmap candidate = bitmaps.get(i);
+                if (candidate.getWidth() == width && candidate.getHeight() == height){
+                    bitmaps.remove(i);
+                    currentBytes -= candidate.getByteCount();
+                    bitmap = candidate;
+                    break;
+                }
+            }
+        }
+
+        if (bitmap == null){
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Hands a bitmap back to the pool. It must not be used by the caller afterwards.
+     * Bitmaps which aren't mutable ARGB_8888 bitmaps, or don't fit in the pool, are
+     * recycled instead. Releasing a bitmap which is already in the pool is ignored.
+     *
+     * @param bitmap the bitmap which is no longer used
+     * */
+    public void release(Bitmap bitmap){
+        if (bitmap.isRecycled()){
+            return;
+        }
+
+        int bytes = bitmap.getByteCount();
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888 || bytes > maxBytes){
+            bitmap.recycle();
+            return;
+        }
+
+        synchronized (bitmaps){
+            if (isPooled(bitmap)){
+                return;
+            }
+            while (currentBytes + bytes > maxBytes && !bitmaps.isEmpty()){
+                Bitmap oldest = bitmaps.remove(0);
+                currentBytes -= oldest.getByteCount();
+                oldest.recycle();
+            }
+            bitmaps.add(bitmap);
+            currentBytes += bytes;
+        }
+    }
+
+    /**
+     * Returns true if the very same bitmap is already in the pool. Must be called
+     * holding the lock.
+     * */
+    private boolean isPooled(Bitmap bitmap){
+        for (int i = 0; i < bitmaps.size(); i++){
+            if (bitmaps.get(i) == bitmap){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recycles every pooled bitmap.
+     * */
+    public void clear(){
+        synchronized (bitmaps){
+            for (Bitmap bitmap : bitmaps){
+                bitmap.recycle();
+            }
+            bitmaps.clear();
+            currentBytes = 0;
+        }
+    }
+
+    /**
+     * Returns the size of the pooled bitmaps.
+     *
+     * @return the size in bytes
+     * */
+    public long getSizeBytes(){
+        synchronized (bitmaps){
+            return currentBytes;
+        }
+    }
+}
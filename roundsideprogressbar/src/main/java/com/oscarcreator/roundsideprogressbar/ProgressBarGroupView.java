@@ -0,0 +1,604 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.LongSparseArray;
+import android.util.SparseArray;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Oscar Creator
+ *
+ * ProgressBarGroupView shows many progressbars in one view, laid out in a grid
+ * with {@link #setColumns(int) columns} bars on each row. The state of every bar
+ * is kept in primitive arrays and all bars are drawn in a single onDraw with shared
+ * cached paths, one {@link RoundSideProgressBarDrawable} per combination of dividers
+ * and colors in use.
+ *
+ * The style of the bars, everything but the per bar values, is shared by all bars
+ * and read from the same attributes as {@link RoundSideProgressBar}. The bars are
+ * always determinate, there is no indeterminate animation in a group.
+ * */
+public class ProgressBarGroupView extends View {
+
+    private int barCount;
+
+    private int columns;
+
+    private float barSpacing;
+
+    //State of every bar
+    private float[] progress = new float[0];
+    private float[] maxProgress = new float[0];
+    private int[] progressColors = new int[0];
+    private int[] progressBackgroundColors = new int[0];
+    private int[] dividers = new int[0];
+
+    //Holds the shared style and the defaults of new bars
+    private RoundSideProgressBarDrawable template;
+
+    //Stale renderers allowed on top of one per bar before all are dropped
+    private static final int MAX_UNUSED_RENDERERS = 16;
+
+    //One renderer per quantity of dividers and then per progress and background color,
+    //the colors are part of the cached fill shader and static layers. All with the size
+    //of one cell
+    private final SparseArray<LongSparseArray<RoundSideProgressBarDrawable>> renderers = new SparseArray<>();
+    private final List<RoundSideProgressBarDrawable> rendererList = new ArrayList<>();
+
+    //Size of one cell
+    private int cellWidth, cellHeight;
+
+    public ProgressBarGroupView(Context context) {
+        super(context);
+        init(context, null);
+    }
+
+    public ProgressBarGroupView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context, attrs);
+    }
+
+    public ProgressBarGroupView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs);
+    }
+
+    /**
+     * Set's the quantity of progressbars. Existing bars keep their state and new
+     * bars get the default values.
+     *
+     * @param count the new quantity of progressbars
+     * */
+    public void setBarCount(int count){
+        if (count < 0){
+            throw new IllegalArgumentException("barCount is not allowed to have a negative value. " +
+                    "Current value: " + count);
+        }
+        if (count != barCount){
+            int oldCount = barCount;
+            barCount = count;
+
+            progress = Arrays.copyOf(progress, count);
+            maxProgress = Arrays.copyOf(maxProgress, count);
+            progressColors = Arrays.copyOf(progressColors, count);
+            progressBackgroundColors = Arrays.copyOf(progressBackgroundColors, count);
+            dividers = Arrays.copyOf(dividers, count);
+
+            for (int i = oldCount; i < count; i++){
+                progress[i] = template.getProgress();
+                maxProgress[i] = template.getMaxProgress();
+                progressColors[i] = template.getProgressColor();
+                progressBackgroundColors[i] = template.getProgressBackgroundColor();
+            }
+
+            updateCells();
+            this.requestLayout();
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the quantity of progressbars.
+     *
+     * @return quantity of progressbars
+     * */
+    public int getBarCount(){
+        return barCount;
+    }
+
+    /**
+     * Set's the quantity of progressbars on each row.
+     *
+     * @param columns quantity of columns, at least 1
+     * */
+    public void setColumns(int columns){
+        if (columns < 1){
+            throw new IllegalArgumentException("columns has to be at least 1. " +
+                    "Current value: " + columns);
+        }
+        if (this.columns != columns){
+            this.columns = columns;
+            updateCells();
+            this.requestLayout();
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the quantity of progressbars on each row.
+     *
+     * @return quantity of columns
+     * */
+    public int getColumns(){
+        return columns;
+    }
+
+    /**
+     * Set's the space between the progressbars.
+     *
+     * @param spacing the space in pixels
+     * */
+    public void setBarSpacing(float spacing){
+        if (this.barSpacing != spacing){
+            this.barSpacing = spacing;
+            updateCells();
+            this.requestLayout();
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the space between the progressbars.
+     *
+     * @return the space in pixels
+     * */
+    public float getBarSpacing(){
+        return barSpacing;
+    }
+
+    /**
+     * Set's the progress of one bar. Only the area of that bar is invalidated.
+     *
+     * @param index index of the bar
+     * @param newProgress the new progress
+     * */
+    public void setProgress(int index, float newProgress){
+        if (progress[index] != newProgress){
+            progress[index] = newProgress;
+            invalidateBar(index);
+        }
+    }
+
+    /**
+     * Returns the progress of one bar.
+     *
+     * @param index index of the bar
+     * @return progress of the bar
+     * */
+    public float getProgress(int index){
+        return progress[index];
+    }
+
+    /**
+     * Set's the maxProgress of one bar.
+     *
+     * @param index index of the bar
+     * @param newMaxProgress the new maxProgress
+     * */
+    public void setMaxProgress(int index, float newMaxProgress){
+        if (newMaxProgress <= 0){
+            throw new IllegalArgumentException("maxProgress is not allowed to be negative or have a value of zero. " +
+                    "Current value: " + newMaxProgress);
+        }
+        if (maxProgress[index] != newMaxProgress){
+            maxProgress[index] = newMaxProgress;
+            invalidateBar(index);
+        }
+    }
+
+    /**
+     * Returns the maxProgress of one bar.
+     *
+     * @param index index of the bar
+     * @return maxProgress of the bar
+     * */
+    public float getMaxProgress(int index){
+        return maxProgress[index];
+    }
+
+    /**
+     * Set's the progress color of one bar.
+     *
+     * @param index index of the bar
+     * @param color the new progress color
+     * */
+    public void setProgressColor(int index, int color){
+        if (progressColors[index] != color){
+            progressColors[index] = color;
+            invalidateBar(index);
+        }
+    }
+
+    /**
+     * Returns the progress color of one bar.
+     *
+     * @param index index of the bar
+     * @return progress color of the bar
+     * */
+    public int getProgressColor(int index){
+        return progressColors[index];
+    }
+
+    /**
+     * Set's the progress background color of one bar.
+     *
+     * @param index index of the bar
+     * @param color the new progress background color
+     * */
+    public void setProgressBackgroundColor(int index, int color){
+        if (progressBackgroundColors[index] != color){
+            progressBackgroundColors[index] = color;
+            invalidateBar(index);
+        }
+    }
+
+    /**
+     * Returns the progress background color of one bar.
+     *
+     * @param index index of the bar
+     * @return progress background color of the bar
+     * */
+    public int getProgressBackgroundColor(int index){
+        return progressBackgroundColors[index];
+    }
+
+    /**
+     * Set's the quantity of dividers of one bar. Bars with the same quantity of
+     * dividers share the same cached geometry.
+     *
+     * @param index index of the bar
+     * @param count quantity of dividers
+     * */
+    public void setDividers(int index, int count){
+        if (dividers[index] != count){
+            dividers[index] = count;
+            invalidateBar(index);
+        }
+    }
+
+    /**
+     * Returns the quantity of dividers of one bar.
+     *
+     * @param index index of the bar
+     * @return quantity of dividers
+     * */
+    public int getDividers(int index){
+        return dividers[index];
+    }
+
+    /**
+     * Set's the orientation of all bars. Use {@link RoundSideProgressBar#CONSTANT_HORIZONTAL}
+     * or {@link RoundSideProgressBar#CONSTANT_VERTICAL}.
+     *
+     * @param orientation the new orientation
+     * */
+    public void setBarOrientation(int orientation){
+        if (template.getOrientation() != orientation){
+            template.setOrientation(orientation);
+            for (int i = 0; i < rendererList.size(); i++){
+                rendererList.get(i).setOrientation(orientation);
+            }
+            this.requestLayout();
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the orientation of the bars.
+     *
+     * @return orientation of the bars
+     * */
+    public int getBarOrientation(){
+        return template.getOrientation();
+    }
+
+    /**
+     * Set's the outline width of all bars.
+     *
+     * @param width the new outline width
+     * */
+    public void setOutlineWidth(float width){
+        if (template.getOutlineWidth() != width){
+            template.setOutlineWidth(width);
+            for (int i = 0; i < rendererList.size(); i++){
+                rendererList.get(i).setOutlineWidth(width);
+            }
+            this.requestLayout();
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the outline width of the bars.
+     *
+     * @return outline width
+     * */
+    public float getOutlineWidth(){
+        return template.getOutlineWidth();
+    }
+
+    /**
+     * Set's the outline color of all bars.
+     *
+     * @param color the new outline color
+     * */
+    public void setOutlineColor(int color){
+        if (template.getOutlineColor() != color){
+            template.setOutlineColor(color);
+            for (int i = 0; i < rendererList.size(); i++){
+                rendererList.get(i).setOutlineColor(color);
+            }
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the outline color of the bars.
+     *
+     * @return outline color
+     * */
+    public int getOutlineColor(){
+        return template.getOutlineColor();
+    }
+
+    /**
+     * Set's the divider width of all bars.
+     *
+     * @param width the new divider width
+     * */
+    public void setDividerWidth(float width){
+        if (template.getDividerWidth() != width){
+            template.setDividerWidth(width);
+            for (int i = 0; i < rendererList.size(); i++){
+                rendererList.get(i).setDividerWidth(width);
+            }
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the divider width of the bars.
+     *
+     * @return divider width
+     * */
+    public float getDividerWidth(){
+        return template.getDividerWidth();
+    }
+
+    /**
+     * Set's the divider color of all bars.
+     *
+     * @param color the new divider color
+     * */
+    public void setDividerColor(int color){
+        if (template.getDividerColor() != color){
+            template.setDividerColor(color);
+            for (int i = 0; i < rendererList.size(); i++){
+                rendererList.get(i).setDividerColor(color);
+            }
+            this.invalidate();
+        }
+    }
+
+    /**
+     * Returns the divider color of the bars.
+     *
+     * @return divider color
+     * */
+    public int getDividerColor(){
+        return template.getDividerColor();
+    }
+
+    /**
+     * Invalidates the area of one bar.
+     *
+     * @param index index of the bar
+     * */
+    //invalidate(l, t, r, b) is deprecated since the hardware renderer ignores the dirty rect, but it
+    //still limits the redraw for software rendering and software layers
+    @SuppressWarnings("deprecation")
+    protected void invalidateBar(int index){
+        int left = getCellLeft(index);
+        int top = getCellTop(index);
+        this.invalidate(left, top, left + cellWidth, top + cellHeight);
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        updateCells();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateCells();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (cellWidth <= 0 || cellHeight <= 0){
+            return;
+        }
+
+        for (int i = 0; i < barCount; i++){
+            int left = getCellLeft(i);
+            int top = getCellTop(i);
+
+            //Skip the bars outside of the dirty area
+            if (canvas.quickReject(left, top, left + cellWidth, top + cellHeight, Canvas.EdgeType.BW)){
+                continue;
+            }
+
+            RoundSideProgressBarDrawable renderer = getRenderer(dividers[i],
+                    progressColors[i], progressBackgroundColors[i]);
+            renderer.setMaxProgress(maxProgress[i]);
+            renderer.setProgress(progress[i]);
+
+            canvas.translate(left, top);
+            renderer.draw(canvas);
+            canvas.translate(-left, -top);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int cols = getEffectiveColumns();
+        int rowCount = getRowCount();
+
+        int desiredWidth = (int) (template.getIntrinsicWidth() * cols + barSpacing * (cols - 1))
+                + getPaddingLeft() + getPaddingRight();
+        int desiredHeight = (int) (template.getIntrinsicHeight() * rowCount + barSpacing * (rowCount - 1))
+                + getPaddingTop() + getPaddingBottom();
+
+        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec),
+                resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    private RoundSideProgressBarDrawable getRenderer(int dividerCount, int progressColor, int backgroundColor){
+        long colors = ((long) progressColor << 32) | (backgroundColor & 0xFFFFFFFFL);
+
+        LongSparseArray<RoundSideProgressBarDrawable> byColors = renderers.get(dividerCount);
+        RoundSideProgressBarDrawable renderer = byColors == null ? null : byColors.get(colors);
+        if (renderer == null){
+            //Colors which are no longer used keep their renderers until there are too many
+            if (rendererList.size() >= barCount + MAX_UNUSED_RENDERERS){
+                renderers.clear();
+                rendererList.clear();
+                byColors = null;
+            }
+            if (byColors == null){
+                byColors = new LongSparseArray<>();
+                renderers.put(dividerCount, byColors);
+            }
+
+            renderer = new RoundSideProgressBarDrawable(getContext());
+            copyTemplateStyle(renderer);
+            renderer.setDividers(dividerCount);
+            renderer.setProgressColor(progressColor);
+            renderer.setProgressBackgroundColor(backgroundColor);
+            renderer.setBounds(0, 0, cellWidth, cellHeight);
+            byColors.put(colors, renderer);
+            rendererList.add(renderer);
+        }
+        return renderer;
+    }
+
+    /**
+     * Copies the style of the template to a renderer. The progress and maxProgress
+     * are set before every draw, the dividers and colors when the renderer is created.
+     * The indeterminate state isn't copied, the bars of a group are always determinate.
+     *
+     * @param renderer the renderer to style
+     * */
+    private void copyTemplateStyle(RoundSideProgressBarDrawable renderer){
+        renderer.setOrientation(template.getOrientation());
+        renderer.setOutlineWidth(template.getOutlineWidth());
+        renderer.setOutlineColor(template.getOutlineColor());
+        renderer.setProgressColor(template.getProgressColor());
+        renderer.setProgressBackgroundColor(template.getProgressBackgroundColor());
+        renderer.setSecondaryProgress(template.getSecondaryProgress());
+        renderer.setSecondaryProgressColor(template.getSecondaryProgressColor());
+
+        int[] colors = template.getProgressColors();
+        if (template.getProgressFill() == RoundSideProgressBarDrawable.PROGRESS_FILL_GRADIENT){
+            renderer.setProgressGradient(colors, template.getProgressColorPositions());
+        }else if (template.getProgressFill() == RoundSideProgressBarDrawable.PROGRESS_FILL_BANDS){
+            renderer.setProgressBands(colors, template.getProgressColorPositions());
+        }
+
+        renderer.setFillMode(template.getFillMode());
+        renderer.setFillEdgeSteps(template.getFillEdgeSteps());
+        renderer.setStaticLayerCacheEnabled(template.isStaticLayerCacheEnabled());
+        renderer.setDividerWidth(template.getDividerWidth());
+        renderer.setDividerColor(template.getDividerColor());
+        renderer.setDividerLodSpacing(template.getDividerDecimateSpacing(),
+                template.getDividerPatternSpacing(), template.getDividerHideSpacing());
+        renderer.setAlpha(template.getAlpha());
+    }
+
+    /**
+     * Returns the quantity of columns in use, which is less than {@link #getColumns()}
+     * when there are fewer bars than columns.
+     *
+     * @return quantity of columns in use, at least 1
+     * */
+    private int getEffectiveColumns(){
+        return Math.max(Math.min(columns, barCount), 1);
+    }
+
+    private int getRowCount(){
+        int cols = getEffectiveColumns();
+        return Math.max((barCount + cols - 1) / cols, 1);
+    }
+
+    private int getCellLeft(int index){
+        return getPaddingLeft() + (int) ((index % getEffectiveColumns()) * (cellWidth + barSpacing));
+    }
+
+    private int getCellTop(int index){
+        return getPaddingTop() + (int) ((index / getEffectiveColumns()) * (cellHeight + barSpacing));
+    }
+
+    private void updateCells(){
+        int cols = getEffectiveColumns();
+        int rows = getRowCount();
+
+        int contentWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        int contentHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+
+        cellWidth = Math.max((int) ((contentWidth - barSpacing * (cols - 1)) / cols), 0);
+        cellHeight = Math.max((int) ((contentHeight - barSpacing * (rows - 1)) / rows), 0);
+
+        for (int i = 0; i < rendererList.size(); i++){
+            rendererList.get(i).setBounds(0, 0, cellWidth, cellHeight);
+        }
+    }
+
+    protected void init(Context context, AttributeSet attrs) {
+
+        template = new RoundSideProgressBarDrawable(context, attrs);
+
+        TypedArray typedArray = context.getTheme().obtainStyledAttributes(attrs,
+                R.styleable.ProgressBarGroupView, 0, 0);
+        int count;
+        try {
+
+            count = typedArray.getInteger(R.styleable.ProgressBarGroupView_barCount,
+                    context.getResources().getInteger(R.integer.defBarCount));
+
+            columns = typedArray.getInteger(R.styleable.ProgressBarGroupView_columns,
+                    context.getResources().getInteger(R.integer.defColumns));
+            if (columns < 1){
+                throw new IllegalArgumentException("columns has to be at least 1. " +
+                        "Current value: " + columns);
+            }
+
+            barSpacing = typedArray.getDimension(R.styleable.ProgressBarGroupView_barSpacing,
+                    context.getResources().getDimension(R.dimen.defBarSpacing));
+
+        } finally {
+            typedArray.recycle();
+        }
+
+        setBarCount(count);
+    }
+}
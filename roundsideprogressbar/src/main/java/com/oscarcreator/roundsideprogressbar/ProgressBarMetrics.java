@@ -0,0 +1,33 @@
+package com.oscarcreator.roundsideprogressbar;
+
+/**
+ * @author Oscar Creator
+ *
+ * Listener for the rendering metrics of a {@link RoundSideProgressBar}. Set it with
+ * {@link RoundSideProgressBar#setMetrics(ProgressBarMetrics)} to enable the
+ * instrumentation, which also adds systrace sections around drawing, measuring and
+ * animation frames. Nothing is measured while no listener is set.
+ *
+ * The callbacks are called on the main thread, in the middle of a frame, so they
+ * should only forward the values and return.
+ * */
+public interface ProgressBarMetrics {
+
+    /**
+     * Called after every draw of the progressbar.
+     *
+     * @param progressBar the progressbar which was drawn
+     * @param stats the accumulated counters of the progressbar
+     * @param drawTimeNanos the time the draw took
+     * */
+    void onDraw(RoundSideProgressBar progressBar, RenderStats stats, long drawTimeNanos);
+
+    /**
+     * Called after every frame of the progress animation.
+     *
+     * @param progressBar the progressbar which was animated
+     * @param stats the accumulated counters of the progressbar
+     * @param skippedFrames quantity of frames missed since the previous animation frame
+     * */
+    void onAnimationFrame(RoundSideProgressBar progressBar, RenderStats stats, int skippedFrames);
+}
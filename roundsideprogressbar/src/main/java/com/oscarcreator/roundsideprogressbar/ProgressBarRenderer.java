@@ -0,0 +1,101 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+
+/**
+ * @author Oscar Creator
+ *
+ * Draws progressbars without a view, for example into the bitmaps of notifications
+ * and home screen widgets. The style is set on the {@link RoundSideProgressBarDrawable}
+ * returned by {@link #getDrawable()}, the size and progress are given to every call.
+ *
+ * A renderer can be created and used on any thread. The render methods are
+ * synchronized, so a renderer can be shared between threads as long as the style
+ * isn't changed while it's shared. Otherwise use one renderer per thread.
+ * */
+public class ProgressBarRenderer {
+
+    private final RoundSideProgressBarDrawable drawable;
+
+    private final ProgressBarBitmapPool bitmapPool;
+
+    //Reused for every bitmap of render(int, int, float)
+    private final Canvas bitmapCanvas = new Canvas();
+
+    /**
+     * Creates a renderer with the default style and its own bitmap pool.
+     *
+     * @param context the context to resolve the default style with
+     * */
+    public ProgressBarRenderer(Context context) {
+        this(context, null, new ProgressBarBitmapPool());
+    }
+
+    /**
+     * Creates a renderer with the style of attrs.
+     *
+     * @param context the context to resolve the attributes with
+     * @param attrs the attributes or null for the default style
+     * @param bitmapPool the pool to obtain bitmaps from, can be shared between renderers
+     * */
+    public ProgressBarRenderer(Context context, @Nullable AttributeSet attrs, ProgressBarBitmapPool bitmapPool) {
+        this.drawable = new RoundSideProgressBarDrawable(context, attrs);
+        this.bitmapPool = bitmapPool;
+    }
+
+    /**
+     * Returns the drawable which does the drawing. Set the style values, like colors,
+     * outline and dividers, on it.
+     *
+     * @return the drawable of the renderer
+     * */
+    public RoundSideProgressBarDrawable getDrawable(){
+        return drawable;
+    }
+
+    /**
+     * Returns the pool the bitmaps of {@link #render(int, int, float)} are obtained from.
+     *
+     * @return the bitmap pool
+     * */
+    public ProgressBarBitmapPool getBitmapPool(){
+        return bitmapPool;
+    }
+
+    /**
+     * Draws a progressbar with the size and progress at the origin of the canvas.
+     * The size includes the outline.
+     *
+     * @param canvas the canvas to draw on
+     * @param width the width of the progressbar
+     * @param height the height of the progressbar
+     * @param progress the progress to draw
+     * */
+    public synchronized void render(Canvas canvas, int width, int height, float progress){
+        drawable.setBounds(0, 0, width, height);
+        drawable.setProgress(progress);
+        drawable.draw(canvas);
+    }
+
+    /**
+     * Draws a progressbar into a bitmap from the bitmap pool. Hand the bitmap back
+     * with {@link ProgressBarBitmapPool#release(Bitmap)} when it's no longer used.
+     *
+     * @param width the width of the bitmap
+     * @param height the height of the bitmap
+     * @param progress the progress to draw
+     * @return the bitmap with the progressbar
+     * */
+    public synchronized Bitmap render(int width, int height, float progress){
+        Bitmap bitmap = bitmapPool.obtain(width, height);
+        bitmapCanvas.setBitmap(bitmap);
+        render(bitmapCanvas, width, height, progress);
+        //Don't keep the bitmap after it's handed out, it may be released and reused
+        bitmapCanvas.setBitmap(null);
+        return bitmap;
+    }
+}
@@ -0,0 +1,133 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import java.util.Arrays;
+
+/**
+ * @author Oscar Creator
+ *
+ * Counters of one progressbar, collected while a {@link ProgressBarMetrics} listener
+ * is set. The draw times are counted in a histogram with the upper bounds of
+ * {@link #getDrawTimeBucketsMicros()}, the last bucket has no upper bound.
+ * */
+public final class RenderStats {
+
+    //Upper bounds in microseconds of the draw time buckets
+    private static final long[] DRAW_TIME_BUCKETS_MICROS = {50, 100, 250, 500, 1000, 2000, 4000, 8000, 16000};
+
+    private long draws, invalidations, animationFrames, skippedFrames;
+
+    private long totalDrawTimeNanos, maxDrawTimeNanos;
+
+    private final long[] drawTimeHistogram = new long[DRAW_TIME_BUCKETS_MICROS.length + 1];
+
+    RenderStats() {}
+
+    /**
+     * Returns the upper bounds of the draw time histogram buckets.
+     *
+     * @return a copy of the upper bounds in microseconds
+     * */
+    public static long[] getDrawTimeBucketsMicros(){
+        return DRAW_TIME_BUCKETS_MICROS.clone();
+    }
+
+    void recordDraw(long drawTimeNanos){
+        draws++;
+        totalDrawTimeNanos += drawTimeNanos;
+        maxDrawTimeNanos = Math.max(maxDrawTimeNanos, drawTimeNanos);
+
+        long micros = drawTimeNanos / 1000;
+        int bucket = 0;
+        while (bucket < DRAW_TIME_BUCKETS_MICROS.length && micros >= DRAW_TIME_BUCKETS_MICROS[bucket]){
+            bucket++;
+        }
+        drawTimeHistogram[bucket]++;
+    }
+
+    void recordInvalidation(){
+        invalidations++;
+    }
+
+    void recordAnimationFrame(int skipped){
+        animationFrames++;
+        skippedFrames += skipped;
+    }
+
+    /**
+     * Returns the quantity of draws.
+     *
+     * @return quantity of draws
+     * */
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns the quantity of invalidations requested by the progressbar itself.
+     *
+     * @return quantity of invalidations
+     * */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the quantity of progress animation frames.
+     *
+     * @return quantity of animation frames
+     * */
+    public long getAnimationFrames() {
+        return animationFrames;
+    }
+
+    /**
+     * Returns the quantity of frames which were missed while animating.
+     *
+     * @return quantity of skipped frames
+     * */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * Returns the sum of all draw times.
+     *
+     * @return total draw time in nanoseconds
+     * */
+    public long getTotalDrawTimeNanos() {
+        return totalDrawTimeNanos;
+    }
+
+    /**
+     * Returns the longest draw time.
+     *
+     * @return the longest draw time in nanoseconds
+     * */
+    public long getMaxDrawTimeNanos() {
+        return maxDrawTimeNanos;
+    }
+
+    /**
+     * Returns a copy of the draw time histogram. Index i counts the draws shorter than
+     * the bound i of {@link #getDrawTimeBucketsMicros()} and not counted in a lower bucket,
+     * the last index counts the draws of the last bound or longer.
+     *
+     * @return the quantity of draws in every bucket
+     * */
+    public long[] getDrawTimeHistogram() {
+        return drawTimeHistogram.clone();
+    }
+
+    /**
+     * Resets all counters to zero.
+     * */
+    public void reset(){
+        draws = 0;
+        invalidations = 0;
+        animationFrames = 0;
+        skippedFrames = 0;
+        totalDrawTimeNanos = 0;
+        maxDrawTimeNanos = 0;
+        Arrays.fill(drawTimeHistogram, 0);
+    }
+}
@@ -2,21 +2,36 @@ package com.oscarcreator.roundsideprogressbar;
 
 import android.animation.ValueAnimator;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.RectF;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
+import android.provider.Settings;
 import android.support.annotation.Nullable;
-import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.View;
+import android.view.animation.AnimationUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Oscar Creator
  *
  * LinearProgressBar is a view which shows progress in the form of a bar.
- * The bar has round corners and optional outline.
+ * The bar has round corners and optional outline. The drawing is done by a
+ * {@link RoundSideProgressBarDrawable}.
+ *
+ * The constructors and init are safe to run on a background thread, for example by
+ * an AsyncLayoutInflater. They only resolve attributes and create the drawable.
+ * Everything which needs the main thread, like the animation clock and the display
+ * refresh rate, is deferred until the view is attached to a window.
  * */
 public class RoundSideProgressBar extends View {
 
@@ -32,51 +47,120 @@ public class RoundSideProgressBar extends View {
     protected static final int DEFAULT_PROGRESS_COLOR_ID = R.color.defaultProgressColor;
     protected static final int DEFAULT_BACKGROUND_COLOR_ID = R.color.defaultOutlineColor;
     protected static final int DEFAULT_PROGRESS_BACKGROUND_COLOR_ID = R.color.defaultProgressBackgroundColor;
+    protected static final int DEFAULT_SECONDARY_PROGRESS_COLOR_ID = R.color.defaultSecondaryProgressColor;
 
 
     protected static final long DEFAULT_ANIMATION_SPEED = 1500;
 
+    protected static final long DEFAULT_INDETERMINATE_DURATION = 1200;
+
     //Full width and height of the view
     protected int fullWidth, fullHeight;
 
     //The width and height of the progressbar
     protected float viewWidth, viewHeight;
 
-    //Paints
+    //Draws the progressbar, placed inside the padding
+    protected RoundSideProgressBarDrawable drawable;
+
+    //Paints, shared with the drawable
     protected Paint outlinePaint, progressPaint, progressBackgroundPaint;
 
+    //Bar and outline rects, shared with the drawable
     protected RectF rectView, rectViewPadding;
 
+    private boolean geometryDirty = true;
+
     //Tag
     private static final String TAG = "LinearProgressBar";
 
-    private float maxProgress, progress;
-
-    /**{@link com.oscarcreator.roundsideprogressbar.R.attr#outlineWidth}*/
-    private int orientation;
+    //Posts progress from other threads, the run queue of a detached view is per thread before API 24
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
 
     private long animationSpeed = DEFAULT_ANIMATION_SPEED;
 
-    //Width of the outline
-    private float outlineWidth;
+    //Animations of the progress and the secondary progress, advanced in the same frames
+    private final ProgressAnimation progressAnimation = new ProgressAnimation();
+    private final ProgressAnimation secondaryProgressAnimation = new ProgressAnimation();
+
+    private boolean registeredWithClock;
+
+    //Animator duration scale of the developer options, read on attach before API 26
+    private float legacyDurationScale = 1f;
+
+    //Tracked here since the window token is still set during onDetachedFromWindow
+    private boolean attachedToWindow;
+
+    private long indeterminateDuration = DEFAULT_INDETERMINATE_DURATION;
+
+    //True while the indeterminate frame callback is posted
+    private boolean indeterminateRunning;
+
+    private final Runnable indeterminateFrame = this::doIndeterminateFrame;
+
+    //Progress span changed during one animation frame, invalidated together at its end
+    private boolean collectingInvalidation;
+    private float collectedProgressStart, collectedProgressEnd;
+
+    //Reused for every animation so retargeting doesn't allocate a new listener
+    private final ProgressAnimationClock.FrameListener animationFrameListener = this::doAnimationFrame;
+
+    //Latest value from postProgress, stored as float bits
+    private final AtomicInteger postedProgressBits = new AtomicInteger();
+    private final AtomicBoolean postedProgressPending = new AtomicBoolean();
+    private final AtomicLong coalescedProgressUpdates = new AtomicLong();
+    private final AtomicLong droppedProgressUpdates = new AtomicLong();
 
-    private int progressColor, outlineColor, progressBackgroundColor;
+    //Progress changes which didn't move the drawn fill edge, only used on the main thread
+    private long suppressedProgressRedraws;
 
-    private ValueAnimator valueAnimator;
+    //Values after init, restored by reset()
+    private State defaultState;
 
+    //Depth of open edit() transactions and the redraw and layout they have deferred
+    private int editDepth;
+    private boolean pendingInvalidate, pendingLayout;
+
+    //Instrumentation, both null unless a metrics listener is set
+    private ProgressBarMetrics metrics;
+    private RenderStats renderStats;
+
+    private long lastAnimationFrameNanos, frameIntervalNanos;
+
+    private final Runnable applyPostedProgress = () -> {
+        postedProgressPending.set(false);
+        float newProgress = Float.intBitsToFloat(postedProgressBits.get());
+        if (newProgress == getProgress()) {
+            droppedProgressUpdates.incrementAndGet();
+        } else {
+            setProgress(newProgress);
+        }
+    };
+
+    private final Runnable postApplyPostedProgress = () -> this.postOnAnimation(applyPostedProgress);
+
+    /**
+     * Creates the progressbar from XML. Safe to call on a background thread.
+     *
+     * @param context the context to resolve the attributes with
+     * @param attrs the attributes of the XML tag
+     * */
     public RoundSideProgressBar(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         init(context, attrs);
+        captureDefaultState();
     }
 
     public RoundSideProgressBar(Context context) {
         super(context);
         init(context, null);
+        captureDefaultState();
     }
 
     public RoundSideProgressBar(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         init(context, attrs);
+        captureDefaultState();
     }
 
     /**
@@ -88,16 +172,81 @@ public class RoundSideProgressBar extends View {
      * @param newProgress the instantly new progress of the progressbar
      * */
     public void setProgress(float newProgress){
-        if (this.progress != newProgress) {
-            this.progress = newProgress;
-            this.invalidate();
+        float oldProgress = getProgress();
+        if (oldProgress != newProgress) {
+            drawable.setProgress(newProgress);
+            onProgressChanged(oldProgress, newProgress);
         }
 
     }
 
     /**
-     * Set's the progress newProgress with a {@link ValueAnimator} if animate is true.
-     * If animate is false the progress will be set instantly without any animation.
+     * Set's the progress newProgress on the next animation frame. This is safe to call
+     * from any thread and as often as needed, only the latest value posted before a
+     * frame is applied so there is at most one redraw per frame.
+     *
+     * @param newProgress the new progress of the progressbar
+     * */
+    public void postProgress(float newProgress){
+        postedProgressBits.set(Float.floatToIntBits(newProgress));
+        if (postedProgressPending.compareAndSet(false, true)){
+            if (Looper.myLooper() == Looper.getMainLooper()){
+                this.postOnAnimation(applyPostedProgress);
+            }else{
+                MAIN_HANDLER.post(postApplyPostedProgress);
+            }
+        }else{
+            coalescedProgressUpdates.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the quantity of posted progress updates which were replaced by a newer
+     * value before they were applied.
+     *
+     * @return quantity of coalesced updates
+     * */
+    public long getCoalescedProgressUpdates(){
+        return coalescedProgressUpdates.get();
+    }
+
+    /**
+     * Returns the quantity of posted progress updates which were applied but didn't
+     * change the progress, and therefore didn't cause a redraw.
+     *
+     * @return quantity of dropped updates
+     * */
+    public long getDroppedProgressUpdates(){
+        return droppedProgressUpdates.get();
+    }
+
+    /**
+     * Returns the quantity of progress changes which didn't move the drawn fill edge
+     * to another step of {@link #setFillEdgeSteps(int)}, and therefore didn't cause
+     * a redraw.
+     *
+     * @return quantity of suppressed redraws
+     * */
+    public long getSuppressedProgressRedraws(){
+        return suppressedProgressRedraws;
+    }
+
+    /**
+     * Resets the counters of {@link #getCoalescedProgressUpdates()},
+     * {@link #getDroppedProgressUpdates()} and {@link #getSuppressedProgressRedraws()}
+     * to zero.
+     * */
+    public void resetProgressUpdateCounters(){
+        coalescedProgressUpdates.set(0);
+        droppedProgressUpdates.set(0);
+        suppressedProgressRedraws = 0;
+    }
+
+    /**
+     * Set's the progress newProgress with an animation if animate is true. All
+     * progressbars are animated from one shared {@link ProgressAnimationClock}.
+     * If animate is false, or animations are turned off in the developer options,
+     * the progress will be set instantly without any animation.
      *
      * @param newProgress the new progress to transition to.
      * @param animate true to animate from current to newProgress
@@ -107,40 +256,277 @@ public class RoundSideProgressBar extends View {
             setProgress(newProgress);
         }else{
 
-            if (newProgress >= 0 && newProgress <= this.maxProgress){
+            if (newProgress >= 0 && newProgress <= getMaxProgress()){
 
                 if (newProgress != getProgress()){
-                    long length = (long)(Math.abs(newProgress - getProgress()) / getMaxProgress() * animationSpeed);
-
-                    if (valueAnimator != null){
-                        if (valueAnimator.isRunning()){
-                            valueAnimator.cancel();
-                        }
-                        valueAnimator.removeAllUpdateListeners();
-                        valueAnimator.setFloatValues(getProgress(), newProgress);
+                    float durationScale = getDurationScale();
+                    if (durationScale == 0f){
+                        //Animations are turned off, jump straight to the end
+                        progressAnimation.cancel();
+                        setProgress(newProgress);
                     }else{
-                        valueAnimator = ValueAnimator.ofFloat(getProgress(), newProgress);
+                        long length = (long)(Math.abs(newProgress - getProgress()) / getMaxProgress()
+                                * animationSpeed * durationScale);
+                        progressAnimation.start(getProgress(), newProgress, length * 1000000L);
+                        registerWithClock();
                     }
-                    valueAnimator.addUpdateListener((valueAnimator) -> {
-                        this.progress = (float) valueAnimator.getAnimatedValue();
-                        this.invalidate();
-
-                    });
-                    valueAnimator.setDuration(length)
-                            .start();
                 }
             }
         }
 
     }
 
+    /**
+     * Set's the secondary progress, drawn between the progress and the secondary
+     * progress with the secondary progress color. Used to show for example the buffered
+     * part of a media stream. Only visible when it's larger than the progress.
+     *
+     * @param newSecondaryProgress the new secondary progress
+     * */
+    public void setSecondaryProgress(float newSecondaryProgress){
+        float oldSecondaryProgress = getSecondaryProgress();
+        if (oldSecondaryProgress != newSecondaryProgress) {
+            drawable.setSecondaryProgress(newSecondaryProgress);
+            onSecondaryProgressChanged(oldSecondaryProgress, newSecondaryProgress);
+        }
+    }
+
+    /**
+     * Set's the secondary progress with an animation if animate is true. It's animated
+     * independently of the progress but in the same frames.
+     *
+     * @param newSecondaryProgress the new secondary progress to transition to
+     * @param animate true to animate from current to newSecondaryProgress
+     * */
+    public void setSecondaryProgress(float newSecondaryProgress, boolean animate){
+        if (!animate){
+            setSecondaryProgress(newSecondaryProgress);
+        }else if (newSecondaryProgress >= 0 && newSecondaryProgress <= getMaxProgress()
+                && newSecondaryProgress != getSecondaryProgress()){
+            float durationScale = getDurationScale();
+            if (durationScale == 0f){
+                secondaryProgressAnimation.cancel();
+                setSecondaryProgress(newSecondaryProgress);
+            }else{
+                long length = (long)(Math.abs(newSecondaryProgress - getSecondaryProgress()) / getMaxProgress()
+                        * animationSpeed * durationScale);
+                secondaryProgressAnimation.start(getSecondaryProgress(), newSecondaryProgress, length * 1000000L);
+                registerWithClock();
+            }
+        }
+    }
+
+    /**
+     * Returns the current secondary progress.
+     *
+     * @return current secondary progress
+     * */
+    public float getSecondaryProgress(){
+        return drawable.getSecondaryProgress();
+    }
+
+    /**
+     * Set's the color drawn from the progress to the secondary progress.
+     *
+     * @param newSecondaryProgressColor the new secondary progress color
+     * */
+    public void setSecondaryProgressColor(int newSecondaryProgressColor){
+        if (getSecondaryProgressColor() != newSecondaryProgressColor){
+            drawable.setSecondaryProgressColor(newSecondaryProgressColor);
+            scheduleInvalidate();
+        }
+    }
+
+    /**
+     * Returns the current secondary progress color.
+     *
+     * @return current secondary progress color
+     * */
+    public int getSecondaryProgressColor(){
+        return drawable.getSecondaryProgressColor();
+    }
+
+    /**
+     * Returns the animator duration scale of the developer options, which the progress
+     * animations are stretched by. 0 means animations are turned off.
+     *
+     * @return the current duration scale
+     * */
+    private float getDurationScale(){
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
+            return ValueAnimator.getDurationScale();
+        }
+        return legacyDurationScale;
+    }
+
+    private void registerWithClock(){
+        //Started when the progressbar becomes visible
+        if (!registeredWithClock && isShownInVisibleWindow()){
+            registeredWithClock = true;
+            ProgressAnimationClock.getInstance().register(animationFrameListener);
+        }
+    }
+
+    /**
+     * Advances the progress animation, called by the {@link ProgressAnimationClock}
+     * once per frame.
+     *
+     * @param frameTimeNanos the time of the frame
+     * @return true while the animation is still running
+     * */
+    private boolean doAnimationFrame(long frameTimeNanos){
+        if (metrics == null){
+            return advanceAnimation(frameTimeNanos);
+        }
+
+        Trace.beginSection("RoundSideProgressBar#animationFrame");
+        try {
+            int skippedFrames = 0;
+            if (lastAnimationFrameNanos > 0 && frameIntervalNanos > 0){
+                skippedFrames = (int) Math.max(0,
+                        Math.round((frameTimeNanos - lastAnimationFrameNanos) / (double) frameIntervalNanos) - 1);
+            }
+
+            boolean running = advanceAnimation(frameTimeNanos);
+            lastAnimationFrameNanos = running ? frameTimeNanos : 0;
+
+            renderStats.recordAnimationFrame(skippedFrames);
+            metrics.onAnimationFrame(this, renderStats, skippedFrames);
+            return running;
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private boolean advanceAnimation(long frameTimeNanos){
+        boolean animateProgress = progressAnimation.isRunning();
+        boolean animateSecondary = secondaryProgressAnimation.isRunning();
+        if (!animateProgress && !animateSecondary){
+            registeredWithClock = false;
+            return false;
+        }
+
+        //Hidden since the last frame, resumed by updateAnimations when shown again
+        if (!isShownInVisibleWindow()){
+            progressAnimation.pause();
+            secondaryProgressAnimation.pause();
+            registeredWithClock = false;
+            return false;
+        }
+
+        //Both values can change in one frame, the changed span is invalidated once
+        collectingInvalidation = true;
+        collectedProgressStart = Float.MAX_VALUE;
+        collectedProgressEnd = -Float.MAX_VALUE;
+        try {
+            if (animateProgress){
+                float oldProgress = getProgress();
+                float newProgress = progressAnimation.advance(frameTimeNanos, getMaxProgress());
+                drawable.setProgress(newProgress);
+                onProgressChanged(oldProgress, newProgress);
+            }
+
+            if (animateSecondary){
+                float oldSecondaryProgress = getSecondaryProgress();
+                float newSecondaryProgress = secondaryProgressAnimation.advance(frameTimeNanos, getMaxProgress());
+                drawable.setSecondaryProgress(newSecondaryProgress);
+                onSecondaryProgressChanged(oldSecondaryProgress, newSecondaryProgress);
+            }
+        } finally {
+            collectingInvalidation = false;
+        }
+
+        if (collectedProgressStart <= collectedProgressEnd){
+            invalidateProgress(collectedProgressStart, collectedProgressEnd);
+        }
+
+        if (progressAnimation.isRunning() || secondaryProgressAnimation.isRunning()){
+            return true;
+        }
+        registeredWithClock = false;
+        return false;
+    }
+
+    /**
+     * Called whenever the drawn progress changes, both when set directly and
+     * for every animation frame.
+     *
+     * @param oldProgress the previous progress
+     * @param newProgress the new progress
+     * */
+    protected void onProgressChanged(float oldProgress, float newProgress){
+        invalidateProgress(oldProgress, newProgress);
+    }
+
+    /**
+     * Called whenever the drawn secondary progress changes, both when set directly and
+     * for every animation frame.
+     *
+     * @param oldSecondaryProgress the previous secondary progress
+     * @param newSecondaryProgress the new secondary progress
+     * */
+    protected void onSecondaryProgressChanged(float oldSecondaryProgress, float newSecondaryProgress){
+        invalidateProgress(oldSecondaryProgress, newSecondaryProgress);
+    }
+
+    /**
+     * Invalidates only the span of the bar between the fill edge of the old and the
+     * new progress. Falls back to invalidating the whole view when the geometry
+     * isn't known yet. During an animation frame the spans are collected and
+     * invalidated together at the end of the frame.
+     *
+     * @param oldProgress the progress which is currently drawn
+     * @param newProgress the progress which will be drawn
+     * */
+    //invalidate(l, t, r, b) is deprecated since the hardware renderer ignores the dirty rect, but it
+    //still limits the redraw for software rendering and software layers
+    @SuppressWarnings("deprecation")
+    protected void invalidateProgress(float oldProgress, float newProgress){
+        //Nothing to redraw when the fill edge stays on the same step
+        if (!geometryDirty && drawable.isBarVisible() && !isIndeterminate()
+                && drawable.getFillEdge(oldProgress) == drawable.getFillEdge(newProgress)){
+            suppressedProgressRedraws++;
+            return;
+        }
+
+        if (collectingInvalidation){
+            collectedProgressStart = Math.min(collectedProgressStart, Math.min(oldProgress, newProgress));
+            collectedProgressEnd = Math.max(collectedProgressEnd, Math.max(oldProgress, newProgress));
+            return;
+        }
+
+        if (editDepth > 0 || geometryDirty || !drawable.isBarVisible()){
+            scheduleInvalidate();
+            return;
+        }
+
+        if (renderStats != null){
+            renderStats.recordInvalidation();
+        }
+
+        float oldEdge = drawable.getFillEdge(oldProgress);
+        float newEdge = drawable.getFillEdge(newProgress);
+
+        //One extra pixel on each side for the anti aliasing
+        int start = (int) Math.floor(Math.min(oldEdge, newEdge)) - 1;
+        int end = (int) Math.ceil(Math.max(oldEdge, newEdge)) + 1;
+
+        if (getOrientation() == CONSTANT_HORIZONTAL){
+            this.invalidate(start, (int) Math.floor(rectView.top) - 1,
+                    end, (int) Math.ceil(rectView.bottom) + 1);
+        }else{
+            this.invalidate((int) Math.floor(rectView.left) - 1, start,
+                    (int) Math.ceil(rectView.right) + 1, end);
+        }
+    }
+
     /**
      * Returns the current progress of the progressbar.
      *
      * @return current progress
      * */
     public float getProgress(){
-        return progress;
+        return drawable.getProgress();
 
     }
 
@@ -152,8 +538,8 @@ public class RoundSideProgressBar extends View {
      * */
     public void setMaxProgress(float newMaxProgress){
         if (getMaxProgress() != newMaxProgress) {
-            this.maxProgress = newMaxProgress;
-            this.invalidate();
+            drawable.setMaxProgress(newMaxProgress);
+            scheduleInvalidate();
         }
     }
 
@@ -163,7 +549,7 @@ public class RoundSideProgressBar extends View {
      * @return current maxProgress
      * */
     public float getMaxProgress(){
-        return maxProgress;
+        return drawable.getMaxProgress();
     }
 
     /**
@@ -174,8 +560,9 @@ public class RoundSideProgressBar extends View {
      * */
     public void setOutlineWidth(float newOutlineWidth) {
         if (getOutlineWidth() != newOutlineWidth) {
-            this.outlineWidth = newOutlineWidth;
-            this.requestLayout();
+            drawable.setOutlineWidth(newOutlineWidth);
+            invalidateGeometry();
+            scheduleLayout();
         }
     }
 
@@ -185,7 +572,7 @@ public class RoundSideProgressBar extends View {
      * @return current outlineWidth
      * */
     public float getOutlineWidth(){
-        return this.outlineWidth;
+        return drawable.getOutlineWidth();
     }
 
     /**
@@ -196,9 +583,8 @@ public class RoundSideProgressBar extends View {
      * */
     public void setOutlineColor(int newOutlineColor){
         if (getOutlineColor() != newOutlineColor) {
-            this.outlineColor = newOutlineColor;
-            outlinePaint.setColor(getOutlineColor());
-            this.invalidate();
+            drawable.setOutlineColor(newOutlineColor);
+            scheduleInvalidate();
         }
     }
 
@@ -208,7 +594,7 @@ public class RoundSideProgressBar extends View {
      * @return current outlineColor
      * */
     public int getOutlineColor(){
-        return this.outlineColor;
+        return drawable.getOutlineColor();
     }
 
     /**
@@ -219,9 +605,8 @@ public class RoundSideProgressBar extends View {
      * */
     public void setProgressColor(int newProgressColor){
         if (getProgressColor() != newProgressColor){
-            this.progressColor = newProgressColor;
-            progressPaint.setColor(getProgressColor());
-            this.invalidate();
+            drawable.setProgressColor(newProgressColor);
+            scheduleInvalidate();
         }
     }
 
@@ -231,7 +616,52 @@ public class RoundSideProgressBar extends View {
      * @return current progressColor
      * */
     public int getProgressColor(){
-        return this.progressColor;
+        return drawable.getProgressColor();
+    }
+
+    /**
+     * Colors the progress with a gradient along the bar instead of the progress color.
+     * The shader is built once for the size of the progressbar, changing the progress
+     * only shows more or less of it.
+     *
+     * @param colors the colors from the start to the end of the progress, at least two
+     * @param positions where each color is placed from 0 to 1, or null for evenly spaced
+     * */
+    public void setProgressGradient(int[] colors, @Nullable float[] positions){
+        drawable.setProgressGradient(colors, positions);
+        scheduleInvalidate();
+    }
+
+    /**
+     * Colors the progress with bands of solid colors along the bar instead of the
+     * progress color, see {@link RoundSideProgressBarDrawable#setProgressBands(int[], float[])}.
+     *
+     * @param colors the colors of the bands from the start to the end, at least one
+     * @param positions where each band starts from 0 to 1, or null for evenly sized bands
+     * */
+    public void setProgressBands(int[] colors, @Nullable float[] positions){
+        drawable.setProgressBands(colors, positions);
+        scheduleInvalidate();
+    }
+
+    /**
+     * Colors the progress with the progress color again after a gradient or bands.
+     * */
+    public void clearProgressColors(){
+        if (getProgressFill() != RoundSideProgressBarDrawable.PROGRESS_FILL_SOLID){
+            drawable.clearProgressColors();
+            scheduleInvalidate();
+        }
+    }
+
+    /**
+     * Returns how the progress is colored, one of the PROGRESS_FILL constants of
+     * {@link RoundSideProgressBarDrawable}.
+     *
+     * @return the current progress fill
+     * */
+    public int getProgressFill(){
+        return drawable.getProgressFill();
     }
 
     /**
@@ -242,9 +672,8 @@ public class RoundSideProgressBar extends View {
      * */
     public void setProgressBackgroundColor(int newProgressBackgroundColor){
         if (getProgressBackgroundColor() != newProgressBackgroundColor){
-            this.progressBackgroundColor = newProgressBackgroundColor;
-            progressBackgroundPaint.setColor(getProgressBackgroundColor());
-            this.invalidate();
+            drawable.setProgressBackgroundColor(newProgressBackgroundColor);
+            scheduleInvalidate();
         }
     }
 
@@ -254,7 +683,7 @@ public class RoundSideProgressBar extends View {
      * @return current progress background color
      * */
     public int getProgressBackgroundColor(){
-        return this.progressBackgroundColor;
+        return drawable.getProgressBackgroundColor();
     }
 
     /**
@@ -265,10 +694,11 @@ public class RoundSideProgressBar extends View {
      * @param newOrientation the new orientation
      * */
     public void setOrientation(int newOrientation){
-        if (this.orientation != newOrientation &&
+        if (getOrientation() != newOrientation &&
                 (newOrientation == CONSTANT_HORIZONTAL | newOrientation == CONSTANT_VERTICAL)){
-            this.orientation = newOrientation;
-            this.requestLayout();
+            drawable.setOrientation(newOrientation);
+            invalidateGeometry();
+            scheduleLayout();
         }
     }
 
@@ -280,7 +710,7 @@ public class RoundSideProgressBar extends View {
      * @return current orientation
      * */
     public int getOrientation(){
-        return this.orientation;
+        return drawable.getOrientation();
     }
 
 
@@ -312,113 +742,651 @@ public class RoundSideProgressBar extends View {
         return animationSpeed;
     }
 
+    /**
+     * Enables caching of the parts which don't change with the progress. The outline,
+     * the progress background and the dividers of {@link DividedRoundSideProgressBar}
+     * are recorded once and replayed every frame until a color, size or outline change.
+     * Note that the progress is then drawn on top of the whole progress background.
+     * Disabled by default.
+     *
+     * @param enabled true to record the static parts once and replay them
+     * */
+    public void setStaticLayerCacheEnabled(boolean enabled){
+        if (isStaticLayerCacheEnabled() != enabled){
+            drawable.setStaticLayerCacheEnabled(enabled);
+            scheduleInvalidate();
+        }
+    }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
+    /**
+     * Returns true if the static parts of the progressbar are cached.
+     *
+     * @return true if the static layer cache is enabled
+     * */
+    public boolean isStaticLayerCacheEnabled(){
+        return drawable.isStaticLayerCacheEnabled();
+    }
 
-        rectView.left = getPaddingLeft() + outlineWidth;
-        rectView.top = getPaddingTop() + outlineWidth;
-        rectView.bottom = viewHeight + getPaddingTop() + outlineWidth;
-        rectView.right = viewWidth + getPaddingLeft() + outlineWidth;
+    /**
+     * Set's how the progress is filled, see {@link RoundSideProgressBarDrawable#setFillMode(int)}.
+     * Use {@link RoundSideProgressBarDrawable#FILL_MODE_CLIP}, the default, or
+     * {@link RoundSideProgressBarDrawable#FILL_MODE_SHADER}.
+     *
+     * @param mode the new fill mode
+     * */
+    public void setFillMode(int mode){
+        if (getFillMode() != mode){
+            drawable.setFillMode(mode);
+            scheduleInvalidate();
+        }
+    }
 
-        float lengthProcent = Math.min(progress / maxProgress, 1f);
-        float currentBarLength;
+    /**
+     * Returns the current fill mode.
+     *
+     * @return the current fill mode
+     * */
+    public int getFillMode(){
+        return drawable.getFillMode();
+    }
 
-        if (orientation == CONSTANT_HORIZONTAL) {
+    /**
+     * Set's how finely the fill edge is placed, see
+     * {@link RoundSideProgressBarDrawable#setFillEdgeSteps(int)}. Progress changes which
+     * don't move the edge to another step don't redraw the progressbar. Default is 1,
+     * whole pixels.
+     *
+     * @param steps the quantity of fill edge positions per pixel, or 0 to not round
+     * */
+    public void setFillEdgeSteps(int steps){
+        if (getFillEdgeSteps() != steps){
+            drawable.setFillEdgeSteps(steps);
+            scheduleInvalidate();
+        }
+    }
+
+    /**
+     * Returns the quantity of fill edge positions per pixel.
+     *
+     * @return the fill edge steps
+     * */
+    public int getFillEdgeSteps(){
+        return drawable.getFillEdgeSteps();
+    }
+
+    /**
+     * Returns a snapshot of the values of the progressbar, which can be modified and
+     * applied to this or another progressbar with {@link #bind(State)}.
+     *
+     * @return a new snapshot of the current values
+     * */
+    public State getState(){
+        State state = new State();
+        saveState(state);
+        return state;
+    }
+
+    /**
+     * Cancels any running animation or posted progress and applies the values of the
+     * state in one {@link #edit()} transaction, so the progressbar is invalidated at
+     * most once. Meant for rebinding recycled rows.
+     *
+     * @param state the values to apply
+     * */
+    public void bind(State state){
+        cancelProgressUpdates();
 
-            float paddedViewWidth = Math.max(rectView.right - rectView.left, 0);
-            currentBarLength = lengthProcent * paddedViewWidth;
+        //Same as edit() and apply(), without creating an editor for every bind
+        beginEdit();
+        applyState(state);
+        endEdit();
+    }
 
-            if (outlineWidth > 0.01) {
-                rectViewPadding.left = getPaddingLeft() + outlineWidth * 0.55f;
-                rectViewPadding.top = getPaddingTop() + outlineWidth * 0.55f;
-                rectViewPadding.bottom = viewHeight + getPaddingTop() + outlineWidth * 1.45f;
-                rectViewPadding.right = viewWidth + getPaddingLeft() + outlineWidth * 1.45f;
+    /**
+     * Cancels any running animation and restores the values the progressbar had after
+     * it was created, without resolving the attributes again.
+     * */
+    public void reset(){
+        bind(defaultState);
+    }
 
-                if (!(rectViewPadding.right - rectViewPadding.left < 0
-                        || rectViewPadding.bottom - rectViewPadding.top < 0)){
+    /**
+     * Writes the current values into the state.
+     *
+     * @param state the state to write to
+     * */
+    protected void saveState(State state){
+        state.maxProgress = getMaxProgress();
+        state.progress = getProgress();
+        state.secondaryProgress = getSecondaryProgress();
+        state.outlineWidth = getOutlineWidth();
+        state.outlineColor = getOutlineColor();
+        state.progressColor = getProgressColor();
+        state.progressBackgroundColor = getProgressBackgroundColor();
+        state.secondaryProgressColor = getSecondaryProgressColor();
+        state.orientation = getOrientation();
+        state.indeterminate = isIndeterminate();
+        state.indeterminateStyle = getIndeterminateStyle();
+        state.indeterminateDuration = getIndeterminateDuration();
+        state.animationSpeed = getAnimationSpeed();
+        state.fillMode = getFillMode();
+        state.fillEdgeSteps = getFillEdgeSteps();
+        state.staticLayerCacheEnabled = isStaticLayerCacheEnabled();
+        state.progressFill = getProgressFill();
+        state.progressColors = drawable.getProgressColors();
+        state.progressColorPositions = drawable.getProgressColorPositions();
+    }
 
-                    outlinePaint.setStrokeWidth(outlineWidth * 1.05f);
-                    Path p = composeRoundedRect(rectViewPadding, CONSTANT_HORIZONTAL);
-                    canvas.drawPath(p, outlinePaint);
-                }
+    /**
+     * Set's the values of the state. Called inside an {@link #edit()} transaction.
+     *
+     * @param state the state to read from
+     * */
+    protected void applyState(State state){
+        setMaxProgress(state.maxProgress);
+        setProgress(state.progress);
+        setSecondaryProgress(state.secondaryProgress);
+        setOutlineWidth(state.outlineWidth);
+        setOutlineColor(state.outlineColor);
+        setProgressColor(state.progressColor);
+        setProgressBackgroundColor(state.progressBackgroundColor);
+        setSecondaryProgressColor(state.secondaryProgressColor);
+        setOrientation(state.orientation);
+        setIndeterminateStyle(state.indeterminateStyle);
+        setIndeterminateDuration(state.indeterminateDuration);
+        setIndeterminate(state.indeterminate);
+        setAnimationSpeed(state.animationSpeed);
+        setFillMode(state.fillMode);
+        setFillEdgeSteps(state.fillEdgeSteps);
+        setStaticLayerCacheEnabled(state.staticLayerCacheEnabled);
+
+        //The gradient and bands setters always rebuild the shader, so they're only
+        //called when the colors differ
+        if (state.progressFill == RoundSideProgressBarDrawable.PROGRESS_FILL_SOLID){
+            clearProgressColors();
+        }else if (!drawable.hasProgressColors(state.progressFill, state.progressColors, state.progressColorPositions)){
+            if (state.progressFill == RoundSideProgressBarDrawable.PROGRESS_FILL_GRADIENT){
+                setProgressGradient(state.progressColors, state.progressColorPositions);
+            }else{
+                setProgressBands(state.progressColors, state.progressColorPositions);
             }
+        }
+    }
 
+    /**
+     * Stops the progress animations where they are and drops a pending posted progress.
+     * */
+    private void cancelProgressUpdates(){
+        progressAnimation.cancel();
+        secondaryProgressAnimation.cancel();
+
+        //The clock callback unregisters on its next frame since nothing is running
+        MAIN_HANDLER.removeCallbacks(postApplyPostedProgress);
+        this.removeCallbacks(applyPostedProgress);
+        postedProgressPending.set(false);
+    }
 
-            //If padding fills the entire viewheight
-            if (!(paddedViewWidth < 0 || rectView.bottom - rectView.top < 0)) {
+    /**
+     * Snapshot of the values of a progressbar, see {@link #getState()} and
+     * {@link #bind(State)}.
+     * */
+    public static class State {
 
-                Path p = composeRoundedRect(rectView, CONSTANT_HORIZONTAL);
+        public float maxProgress, progress, secondaryProgress;
 
-                if (1 - lengthProcent > 0) {
-                    canvas.save();
-                    canvas.clipRect(rectView.left + currentBarLength, rectView.top, rectView.right, rectView.bottom);
-                    canvas.drawPath(p, progressBackgroundPaint);
-                    canvas.restore();
-                }
+        public float outlineWidth;
 
-                if (lengthProcent > 0) {
-                    canvas.save();
-                    canvas.clipRect(rectView.left, rectView.top, rectView.left + currentBarLength, rectView.bottom);
-                    canvas.drawPath(p, progressPaint);
-                    canvas.restore();
-                }
+        public int outlineColor, progressColor, progressBackgroundColor, secondaryProgressColor;
+
+        public int orientation;
+
+        public boolean indeterminate;
+
+        //One of the INDETERMINATE constants of RoundSideProgressBarDrawable
+        public int indeterminateStyle;
+
+        public long indeterminateDuration;
+
+        public long animationSpeed;
+
+        //One of the FILL_MODE constants of RoundSideProgressBarDrawable
+        public int fillMode;
+
+        public int fillEdgeSteps;
+
+        public boolean staticLayerCacheEnabled;
+
+        //One of the PROGRESS_FILL constants, the colors and positions are only used when not solid
+        public int progressFill;
+        public int[] progressColors;
+        public float[] progressColorPositions;
+    }
+
+    /**
+     * Starts a transaction of property changes. The setters of the returned editor,
+     * or of the progressbar itself, don't update the progressbar until
+     * {@link Editor#apply()} is called. Then it's laid out once if any change affects
+     * the size and redrawn once if any change affects the drawing. Nothing is done
+     * when no property actually changed.
+     *
+     * @return the editor to set the properties with
+     * */
+    public Editor edit(){
+        beginEdit();
+        return new Editor();
+    }
+
+    /**
+     * Opens an {@link #edit()} transaction without creating an editor. Subclasses
+     * overriding {@link #edit()} to return their own editor call this instead of
+     * the super method.
+     * */
+    protected void beginEdit(){
+        editDepth++;
+    }
+
+    /**
+     * Invalidates the view, or only records that it has to be invalidated when
+     * there is an open {@link #edit()} transaction.
+     * */
+    protected void scheduleInvalidate(){
+        if (editDepth > 0){
+            pendingInvalidate = true;
+        }else{
+            if (renderStats != null){
+                renderStats.recordInvalidation();
             }
+            this.invalidate();
+        }
+    }
 
+    /**
+     * Requests a layout, or only records that a layout is needed when there is an
+     * open {@link #edit()} transaction.
+     * */
+    protected void scheduleLayout(){
+        if (editDepth > 0){
+            pendingLayout = true;
+        }else{
+            this.requestLayout();
+        }
+    }
 
+    private void endEdit(){
+        if (editDepth == 0){
+            throw new IllegalStateException("apply() called without a matching edit().");
+        }
 
-            //Orientation vertical
-        } else {
-            float paddedViewHeight = Math.max(rectView.bottom - rectView.top, 0f);
-            currentBarLength = lengthProcent * paddedViewHeight;
-
-            //Drawing outline
-            if (outlineWidth > 0.01) {
-                rectViewPadding.left = getPaddingLeft() + outlineWidth * 0.55f;
-                rectViewPadding.top = getPaddingTop() + outlineWidth * 0.55f;
-                rectViewPadding.bottom = viewHeight + getPaddingTop() + outlineWidth * 1.45f;
-                rectViewPadding.right = viewWidth + getPaddingLeft() + outlineWidth * 1.45f;
-
-                if (!(rectViewPadding.right - rectViewPadding.left < 0
-                        || rectViewPadding.bottom - rectViewPadding.top < 0)){
-                    outlinePaint.setStrokeWidth(outlineWidth * 1.05f);
-                    Path p = composeRoundedRect(rectViewPadding, CONSTANT_VERTICAL);
-                    canvas.drawPath(p, outlinePaint);
+        if (--editDepth == 0){
+            if (pendingLayout){
+                pendingLayout = false;
+                this.requestLayout();
+            }
+            if (pendingInvalidate){
+                pendingInvalidate = false;
+                if (renderStats != null){
+                    renderStats.recordInvalidation();
                 }
+                this.invalidate();
             }
+        }
+    }
+
+    /**
+     * Records property changes of the progressbar, returned by {@link #edit()}.
+     * Every setter returns the editor so the calls can be chained.
+     * */
+    public class Editor {
 
-            //If padding fills the entire viewHeight
-            if (!(paddedViewHeight < 0 || rectView.right - rectView.left < 0)) {
+        protected Editor() {}
 
-                Path p = composeRoundedRect(rectView, CONSTANT_VERTICAL);
+        public Editor setProgress(float progress){
+            RoundSideProgressBar.this.setProgress(progress);
+            return this;
+        }
 
-                if (1 - lengthProcent > 0) {
-                    canvas.save();
-                    canvas.clipRect(rectView.left, rectView.top, rectView.right, rectView.bottom - currentBarLength);
-                    canvas.drawPath(p, progressBackgroundPaint);
-                    canvas.restore();
-                }
+        public Editor setMaxProgress(float maxProgress){
+            RoundSideProgressBar.this.setMaxProgress(maxProgress);
+            return this;
+        }
 
-                if (lengthProcent > 0) {
-                    canvas.save();
-                    canvas.clipRect(rectView.left, rectView.bottom - currentBarLength, rectView.right, rectView.bottom);
-                    canvas.drawPath(p, progressPaint);
-                    canvas.restore();
-                }
+        public Editor setOutlineWidth(float outlineWidth){
+            RoundSideProgressBar.this.setOutlineWidth(outlineWidth);
+            return this;
+        }
+
+        public Editor setOutlineColor(int outlineColor){
+            RoundSideProgressBar.this.setOutlineColor(outlineColor);
+            return this;
+        }
+
+        public Editor setProgressColor(int progressColor){
+            RoundSideProgressBar.this.setProgressColor(progressColor);
+            return this;
+        }
+
+        public Editor setProgressBackgroundColor(int progressBackgroundColor){
+            RoundSideProgressBar.this.setProgressBackgroundColor(progressBackgroundColor);
+            return this;
+        }
+
+        public Editor setOrientation(int orientation){
+            RoundSideProgressBar.this.setOrientation(orientation);
+            return this;
+        }
+
+        public Editor setFillMode(int mode){
+            RoundSideProgressBar.this.setFillMode(mode);
+            return this;
+        }
+
+        public Editor setSecondaryProgress(float secondaryProgress){
+            RoundSideProgressBar.this.setSecondaryProgress(secondaryProgress);
+            return this;
+        }
+
+        public Editor setSecondaryProgressColor(int secondaryProgressColor){
+            RoundSideProgressBar.this.setSecondaryProgressColor(secondaryProgressColor);
+            return this;
+        }
+
+        public Editor setIndeterminate(boolean indeterminate){
+            RoundSideProgressBar.this.setIndeterminate(indeterminate);
+            return this;
+        }
+
+        public Editor setStaticLayerCacheEnabled(boolean enabled){
+            RoundSideProgressBar.this.setStaticLayerCacheEnabled(enabled);
+            return this;
+        }
+
+        /**
+         * Ends the transaction and updates the progressbar once for all changes.
+         * */
+        public void apply(){
+            endEdit();
+        }
+    }
+
+    /**
+     * Set's if the progressbar is indeterminate. An indeterminate progressbar animates
+     * the style of {@link #setIndeterminateStyle(int)} instead of showing the progress.
+     * The animation runs on the frame callback of the view and only while it's shown.
+     * The progress is kept and shown again when no longer indeterminate.
+     *
+     * @param indeterminate true to animate the indeterminate style
+     * */
+    public void setIndeterminate(boolean indeterminate){
+        if (isIndeterminate() != indeterminate){
+            drawable.setIndeterminate(indeterminate);
+            updateIndeterminateAnimation();
+            scheduleInvalidate();
+        }
+    }
+
+    /**
+     * Returns true if the progressbar is indeterminate.
+     *
+     * @return true if indeterminate
+     * */
+    public boolean isIndeterminate(){
+        return drawable.isIndeterminate();
+    }
+
+    /**
+     * Set's what is animated when indeterminate. Use
+     * {@link RoundSideProgressBarDrawable#INDETERMINATE_SWEEP}, the default, or
+     * {@link RoundSideProgressBarDrawable#INDETERMINATE_STRIPES}.
+     *
+     * @param style the new indeterminate style
+     * */
+    public void setIndeterminateStyle(int style){
+        if (getIndeterminateStyle() != style){
+            drawable.setIndeterminateStyle(style);
+            scheduleInvalidate();
+        }
+    }
+
+    /**
+     * Returns the current indeterminate style.
+     *
+     * @return the current indeterminate style
+     * */
+    public int getIndeterminateStyle(){
+        return drawable.getIndeterminateStyle();
+    }
+
+    /**
+     * Set's the time of one indeterminate cycle in milliseconds.
+     * Default value is {@link #DEFAULT_INDETERMINATE_DURATION}
+     *
+     * @param millis the new cycle duration
+     * */
+    public void setIndeterminateDuration(long millis){
+        if (millis <= 0){
+            throw new IllegalArgumentException("indeterminateDuration has to be larger than zero. " +
+                    "Current value: " + millis);
+        }
+        indeterminateDuration = millis;
+    }
+
+    /**
+     * Returns the time of one indeterminate cycle in milliseconds.
+     *
+     * @return the current cycle duration
+     * */
+    public long getIndeterminateDuration(){
+        return indeterminateDuration;
+    }
+
+    /**
+     * Returns true when the view is attached, shown and its window is visible. Only
+     * used to pause the animations, it doesn't change what the framework or
+     * accessibility consider visible.
+     *
+     * @return true if the progressbar can be seen
+     * */
+    private boolean isShownInVisibleWindow(){
+        return attachedToWindow && isShown() && getWindowVisibility() == VISIBLE;
+    }
+
+    /**
+     * Starts or stops the indeterminate frame callback depending on if the
+     * progressbar is indeterminate and visible.
+     * */
+    private void updateIndeterminateAnimation(){
+        boolean run = isIndeterminate() && isShownInVisibleWindow();
+        if (run && !indeterminateRunning){
+            indeterminateRunning = true;
+            this.postOnAnimation(indeterminateFrame);
+        }else if (!run && indeterminateRunning){
+            indeterminateRunning = false;
+            this.removeCallbacks(indeterminateFrame);
+        }
+    }
+
+    private void doIndeterminateFrame(){
+        if (!indeterminateRunning){
+            return;
+        }
+        if (!isIndeterminate() || !isShownInVisibleWindow()){
+            indeterminateRunning = false;
+            return;
+        }
+
+        long time = AnimationUtils.currentAnimationTimeMillis();
+        drawable.setIndeterminatePhase((time % indeterminateDuration) / (float) indeterminateDuration);
+        scheduleInvalidate();
+        this.postOnAnimation(indeterminateFrame);
+    }
+
+    /**
+     * Resumes the animations when the progressbar is visible. Hidden progress
+     * animations are paused by the next frame of the {@link ProgressAnimationClock}.
+     * */
+    private void updateAnimations(){
+        //Visibility callbacks can come from the View constructor, before init
+        if (drawable == null){
+            return;
+        }
+
+        updateIndeterminateAnimation();
+        if (progressAnimation.isRunning() || secondaryProgressAnimation.isRunning()){
+            registerWithClock();
+        }
+    }
+
+    /**
+     * Ends the progress animations at their targets.
+     * */
+    private void finishProgressAnimations(){
+        if (progressAnimation.isRunning()){
+            progressAnimation.cancel();
+            setProgress(progressAnimation.getTarget());
+        }
+        if (secondaryProgressAnimation.isRunning()){
+            secondaryProgressAnimation.cancel();
+            setSecondaryProgress(secondaryProgressAnimation.getTarget());
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        attachedToWindow = false;
+        //Likely recycled or gone for good, so there is nothing to resume
+        finishProgressAnimations();
+        updateAnimations();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimations();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateAnimations();
+    }
+
+    /**
+     * Set's the listener for the rendering metrics. While a listener is set draws,
+     * invalidations and animation frames are counted and timed, and systrace sections
+     * are added around drawing, measuring and animation frames. Without a listener
+     * nothing is measured.
+     *
+     * @param metrics the listener or null to disable the instrumentation
+     * */
+    public void setMetrics(@Nullable ProgressBarMetrics metrics){
+        this.metrics = metrics;
+        if (metrics == null){
+            renderStats = null;
+        }else{
+            if (renderStats == null){
+                renderStats = new RenderStats();
             }
+            updateFrameInterval();
+        }
+        lastAnimationFrameNanos = 0;
+    }
+
+    /**
+     * Returns the counters collected since the metrics listener was set.
+     *
+     * @return the counters or null when no metrics listener is set
+     * */
+    @Nullable
+    public RenderStats getRenderStats(){
+        return renderStats;
+    }
+
+    private void updateFrameInterval(){
+        Display display = getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 60f;
+        frameIntervalNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : 60f));
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attachedToWindow = true;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O){
+            legacyDurationScale = Settings.Global.getFloat(getContext().getContentResolver(),
+                    Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        if (metrics != null){
+            updateFrameInterval();
+        }
+        updateAnimations();
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        invalidateGeometry();
+    }
+
+    @Override
+    public void setPaddingRelative(int start, int top, int end, int bottom) {
+        super.setPaddingRelative(start, top, end, bottom);
+        invalidateGeometry();
+    }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        invalidateGeometry();
+    }
 
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (metrics == null){
+            ensureGeometry();
+            drawable.draw(canvas);
+            return;
         }
+
+        Trace.beginSection("RoundSideProgressBar#onDraw");
+        long start = System.nanoTime();
+        try {
+            ensureGeometry();
+            drawable.draw(canvas);
+        } finally {
+            Trace.endSection();
+        }
+
+        long drawTimeNanos = System.nanoTime() - start;
+        renderStats.recordDraw(drawTimeNanos);
+        metrics.onDraw(this, renderStats, drawTimeNanos);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (metrics == null){
+            measureProgressBar(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        Trace.beginSection("RoundSideProgressBar#onMeasure");
+        try {
+            measureProgressBar(widthMeasureSpec, heightMeasureSpec);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void measureProgressBar(int widthMeasureSpec, int heightMeasureSpec) {
 
         int widthMode = MeasureSpec.getMode(widthMeasureSpec);
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
+        int orientation = getOrientation();
+        float outlineWidth = getOutlineWidth();
+
         //Must be this size
         if (widthMode == MeasureSpec.EXACTLY) {
             fullWidth = widthSize;
@@ -463,124 +1431,79 @@ public class RoundSideProgressBar extends View {
             viewHeight = DEFAULT_HEIGHT;
         }
 
-//        Log.i(TAG, "heightSize:" + heightSize + " widthSize:" + widthSize);
-//        Log.i(TAG, "heightmode:" + heightMode + " widthmode:" + widthMode);
-//
-//        Log.i("LinearProgressBar", "fullwidth: " + fullWidth + ", fullheight: " + fullHeight +
-//                " viewWidth:" + viewWidth + " viewHeight:" + viewHeight + " my padding:" + outlineWidth);
+        //viewWidth and viewHeight might have changed without the size changing
+        invalidateGeometry();
 
         //Must call this
         setMeasuredDimension(fullWidth, fullHeight);
     }
 
+    /**
+     * Creates the drawable from the attributes. Runs in the constructor, possibly on a
+     * background thread, so it must not touch anything which needs the main thread.
+     *
+     * @param context the context to resolve the attributes with
+     * @param attrs the attributes or null for the default style
+     * */
     protected void init(Context context, AttributeSet attrs) {
 
-        TypedArray typedArray = context.getTheme().obtainStyledAttributes(attrs,
-                R.styleable.RoundSideProgressBar, R.attr.roundSideProgressBarStyle, R.style.RoundSideProgressBar);
-
-        try {
-
-            maxProgress = typedArray.getFloat(R.styleable.RoundSideProgressBar_maxProgress,
-                    context.getResources().getInteger(R.integer.defMaxProgress));
-            checkValidMaxProgress(maxProgress);
-
-            progress = typedArray.getFloat(R.styleable.RoundSideProgressBar_progress,
-                    context.getResources().getInteger(R.integer.defProgress));
-            checkValidProgress(progress);
-
+        drawable = new RoundSideProgressBarDrawable(context, attrs);
 
-            progressColor = typedArray.getColor(R.styleable.RoundSideProgressBar_progressColor,
-                    ContextCompat.getColor(context, DEFAULT_PROGRESS_COLOR_ID));
-            outlineColor = typedArray.getColor(R.styleable.RoundSideProgressBar_outlineColor,
-                    ContextCompat.getColor(context, DEFAULT_BACKGROUND_COLOR_ID));
-            progressBackgroundColor = typedArray.getColor(R.styleable.RoundSideProgressBar_progressBackgroundColor,
-                    ContextCompat.getColor(context, DEFAULT_PROGRESS_BACKGROUND_COLOR_ID));
+        outlinePaint = drawable.outlinePaint;
+        progressPaint = drawable.progressPaint;
+        progressBackgroundPaint = drawable.progressBackgroundPaint;
 
+        rectView = drawable.rectView;
+        rectViewPadding = drawable.rectViewPadding;
 
-            outlineWidth = typedArray.getDimension(R.styleable.RoundSideProgressBar_outlineWidth,
-                    context.getResources().getDimension(R.dimen.defOutlineWidth));
-            checkValidOutlineWidth(outlineWidth);
-
-            orientation = typedArray.getInt(R.styleable.RoundSideProgressBar_orientation,
-                    context.getResources().getInteger(R.integer.horizontalConst));
-            checkValidOrientation(orientation);
-
-        } finally {
-            typedArray.recycle();
-        }
-
-
-        outlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        outlinePaint.setColor(outlineColor);
-        outlinePaint.setStyle(Paint.Style.STROKE);
-
-        progressPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        progressPaint.setColor(progressColor);
-
-        progressBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        progressBackgroundPaint.setColor(progressBackgroundColor);
-
-        rectView = new RectF(0, 0, viewWidth, viewHeight);
-        rectViewPadding = new RectF(0, 0, 0, 0);
-    }
-
-
-    protected Path composeRoundedRect(RectF rect, int orientation) {
-        Path p = new Path();
-        float cornerRadius;
-        if (orientation == CONSTANT_HORIZONTAL) {
-            cornerRadius = Math.abs((rect.bottom - rect.top) / 2);
-            p.moveTo(rect.left + cornerRadius, rect.top);
-            p.lineTo(rect.right - cornerRadius, rect.top);
-            p.arcTo(new RectF(rect.right - cornerRadius * 2, rect.top, rect.right, rect.bottom), -90, 180);
-            p.lineTo(rect.left + cornerRadius, rect.bottom);
-            p.arcTo(new RectF(rect.left, rect.top, rect.left + cornerRadius * 2, rect.bottom), 90, 180);
-        } else {
-            cornerRadius = Math.abs((rect.right - rect.left) / 2);
-            p.moveTo(rect.left, rect.top + cornerRadius);
-            p.arcTo(new RectF(rect.left, rect.top, rect.right, rect.top + cornerRadius * 2), 180, 180);
-            p.lineTo(rect.right, rect.bottom - cornerRadius);
-            p.arcTo(new RectF(rect.left, rect.bottom - cornerRadius * 2, rect.right, rect.bottom), 0, 180);
-            p.lineTo(rect.left, rect.top + cornerRadius);
-        }
-
-        p.close();
-        return p;
+        geometryDirty = true;
     }
 
-    private boolean checkValidMaxProgress(float value){
-        if (value <= 0){
-            throw new IllegalArgumentException("maxProgress is not allowed to be negative or have a value of zero. " +
-                    "Current value: " + value);
-        }
-        return true;
+    /**
+     * Stores the current values as the ones {@link #reset()} restores. Called by the
+     * constructors once init, including the init of subclasses, is done.
+     * */
+    protected void captureDefaultState(){
+        defaultState = getState();
     }
 
-    private boolean checkValidProgress(float value){
-        if (value < 0){
-            throw new IllegalArgumentException("progress is not allowed to have a negative value. " +
-                    "Current value: " + value);
-        }
-        return true;
+    /**
+     * Marks the bounds of the drawable as stale. They will be updated on the next draw.
+     * */
+    protected void invalidateGeometry(){
+        geometryDirty = true;
     }
 
-    private boolean checkValidOutlineWidth(float value){
-        if (value < 0){
-            throw new IllegalArgumentException("dividerWidth is not allowed to have a negative value. " +
-                    "Current value: " + value);
+    /**
+     * Places the drawable inside the padding if the size, padding or outline
+     * has changed since the last draw.
+     * */
+    protected void ensureGeometry(){
+        if (geometryDirty){
+            //The bounds include the outline
+            float outlineWidth = getOutlineWidth();
+            int left = getPaddingLeft();
+            int top = getPaddingTop();
+            drawable.setBounds(left, top,
+                    Math.round(left + viewWidth + outlineWidth * 2),
+                    Math.round(top + viewHeight + outlineWidth * 2));
+            geometryDirty = false;
         }
-        return true;
     }
 
-    private boolean checkValidOrientation(int value){
-        if (value != 0 && value != 1){
-            throw new IllegalArgumentException("orientation is only allowed to have a value of \"vertical\"" +
-                    " or \"horizontal\". " +
-                    "Current value: " + value);
-        }
-        return true;
+    /**
+     * Returns a new path of a rect with fully rounded short sides.
+     *
+     * @param rect the bounds of the rounded rect
+     * @param orientation {@link #CONSTANT_HORIZONTAL} or {@link #CONSTANT_VERTICAL}
+     * @return the rounded rect
+     * @deprecated the progressbar is drawn by {@link RoundSideProgressBarDrawable}, which
+     * composes its paths with {@link RoundSideProgressBarDrawable#composeRoundedRect(Path, RectF, int)}.
+     * Overriding this method no longer changes the drawn shape.
+     * */
+    @Deprecated
+    protected Path composeRoundedRect(RectF rect, int orientation) {
+        return drawable.composeRoundedRect(new Path(), rect, orientation);
     }
 
-
-
 }
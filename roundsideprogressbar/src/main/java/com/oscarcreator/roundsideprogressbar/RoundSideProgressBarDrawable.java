@@ -0,0 +1,1511 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+
+import java.util.Arrays;
+
+import static com.oscarcreator.roundsideprogressbar.RoundSideProgressBar.CONSTANT_HORIZONTAL;
+import static com.oscarcreator.roundsideprogressbar.RoundSideProgressBar.CONSTANT_VERTICAL;
+
+/**
+ * @author Oscar Creator
+ *
+ * Drawable which draws a progressbar with round sides, an optional outline and
+ * optional dividers. This is the rendering engine of {@link RoundSideProgressBar}
+ * and {@link DividedRoundSideProgressBar}, and can be used on its own as a background,
+ * a compound drawable or drawn directly in a custom view without a view per bar.
+ *
+ * The bounds of the drawable include the outline.
+ * */
+public class RoundSideProgressBarDrawable extends Drawable {
+
+    //Fill modes
+    public static final int FILL_MODE_CLIP = 0;
+    public static final int FILL_MODE_SHADER = 1;
+
+    //Progress fills
+    public static final int PROGRESS_FILL_SOLID = 0;
+    public static final int PROGRESS_FILL_GRADIENT = 1;
+    public static final int PROGRESS_FILL_BANDS = 2;
+
+    //Divider levels of detail, from every divider drawn to none
+    public static final int DIVIDER_LOD_FULL = 0;
+    public static final int DIVIDER_LOD_DECIMATED = 1;
+    public static final int DIVIDER_LOD_PATTERN = 2;
+    public static final int DIVIDER_LOD_NONE = 3;
+
+    //Default divider spacings in pixels below which the level of detail is lowered
+    private static final float DEFAULT_DIVIDER_DECIMATE_SPACING = 4f;
+    private static final float DEFAULT_DIVIDER_PATTERN_SPACING = 2f;
+    private static final float DEFAULT_DIVIDER_HIDE_SPACING = 1f;
+
+    //Indeterminate styles
+    public static final int INDETERMINATE_SWEEP = 0;
+    public static final int INDETERMINATE_STRIPES = 1;
+
+    private float maxProgress, progress, secondaryProgress;
+
+    private int orientation;
+
+    //Width of the outline
+    private float outlineWidth;
+
+    private int progressColor, outlineColor, progressBackgroundColor, secondaryProgressColor;
+
+    private int dividers;
+
+    private float dividerWidth;
+
+    private int alpha = 255;
+
+    //Paints
+    final Paint outlinePaint, progressPaint, progressBackgroundPaint, secondaryProgressPaint, dividerPaint;
+
+    //The bar and the outline, in the coordinates of the bounds
+    final RectF rectView, rectViewPadding;
+
+    private final RectF arcRect = new RectF();
+
+    //Cached geometry of the bar, the outline and the dividers, rebuilt only when the size changes
+    private final Path barPath = new Path();
+    private final Path outlinePath = new Path();
+    private final Path dividerPath = new Path();
+
+    //Start coordinate of every divider along the bar
+    private float[] dividerPositions = new float[0];
+
+    //Level of detail of the dividers and every how many divider is drawn when decimated
+    private int dividerLod = DIVIDER_LOD_FULL;
+    private int dividerStride = 1;
+
+    private float dividerDecimateSpacing = DEFAULT_DIVIDER_DECIMATE_SPACING;
+    private float dividerPatternSpacing = DEFAULT_DIVIDER_PATTERN_SPACING;
+    private float dividerHideSpacing = DEFAULT_DIVIDER_HIDE_SPACING;
+
+    //Repeating gradient with one divider per period, for DIVIDER_LOD_PATTERN
+    private final Paint dividerPatternPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private LinearGradient dividerPattern;
+
+    //Multiplier from progress fraction to segment index
+    private float segmentScale;
+
+    private boolean geometryDirty = true;
+
+    //False when the outline fills the entire bounds
+    private boolean barVisible;
+
+    private boolean outlineVisible;
+
+    //Recordings of what's drawn below and above the progress, when enabled
+    private boolean staticLayerCacheEnabled;
+    private StaticLayer backgroundLayer, foregroundLayer;
+
+    private int fillMode = FILL_MODE_CLIP;
+
+    //Colors along the bar when the progress fill isn't solid, positions are null when evenly spaced
+    private int progressFill = PROGRESS_FILL_SOLID;
+    private int[] progressColors;
+    private float[] progressColorPositions;
+
+    //Set on progressPaint, built once per size and orientation
+    private LinearGradient progressShader;
+
+    //Fill edge positions per pixel, 0 when the edge isn't rounded
+    private int fillEdgeSteps = 1;
+
+    //Hard stop gradient for FILL_MODE_SHADER, only the local matrix changes with the progress
+    private final Paint fillShaderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Matrix fillShaderMatrix = new Matrix();
+    private LinearGradient fillShader;
+
+    private boolean indeterminate;
+    private int indeterminateStyle = INDETERMINATE_SWEEP;
+
+    //Position in the indeterminate cycle, from 0 to 1
+    private float indeterminatePhase;
+
+    //Cached until the size, orientation or colors change, only the local matrix moves
+    private final Paint indeterminatePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Matrix indeterminateMatrix = new Matrix();
+    private LinearGradient indeterminateShader;
+
+    /**
+     * Creates a drawable with the values of the default style
+     * {@link com.oscarcreator.roundsideprogressbar.R.style#RoundSideProgressBar}
+     * and no dividers.
+     *
+     * @param context the context to resolve the default style with
+     * */
+    public RoundSideProgressBarDrawable(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Creates a drawable with the {@link com.oscarcreator.roundsideprogressbar.R.styleable#RoundSideProgressBar}
+     * attributes of attrs, in the same way as {@link RoundSideProgressBar} is inflated.
+     *
+     * @param context the context to resolve the attributes with
+     * @param attrs the attributes or null for the default style
+     * */
+    public RoundSideProgressBarDrawable(Context context, @Nullable AttributeSet attrs) {
+        //Shared between every drawable inflated with the same theme and style
+        StyleCache.BarStyle style = StyleCache.getBarStyle(context, attrs);
+
+        maxProgress = style.maxProgress;
+        checkValidMaxProgress(maxProgress);
+
+        progress = style.progress;
+        checkValidProgress(progress);
+
+        secondaryProgress = style.secondaryProgress;
+        checkValidProgress(secondaryProgress);
+
+        progressColor = style.progressColor;
+        outlineColor = style.outlineColor;
+        progressBackgroundColor = style.progressBackgroundColor;
+        secondaryProgressColor = style.secondaryProgressColor;
+
+        outlineWidth = style.outlineWidth;
+        checkValidOutlineWidth(outlineWidth);
+
+        orientation = style.orientation;
+        checkValidOrientation(orientation);
+
+        dividerWidth = style.dividerWidth;
+
+        outlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        outlinePaint.setColor(outlineColor);
+        outlinePaint.setStyle(Paint.Style.STROKE);
+
+        progressPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        progressPaint.setColor(progressColor);
+
+        progressBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        progressBackgroundPaint.setColor(progressBackgroundColor);
+
+        secondaryProgressPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        secondaryProgressPaint.setColor(secondaryProgressColor);
+
+        dividerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        dividerPaint.setColor(style.dividerColor);
+
+        if (style.progressFill == PROGRESS_FILL_GRADIENT){
+            setProgressGradient(style.progressColors, style.progressColorPositions);
+        }else if (style.progressFill == PROGRESS_FILL_BANDS){
+            setProgressBands(style.progressColors, style.progressColorPositions);
+        }
+
+        rectView = new RectF();
+        rectViewPadding = new RectF();
+    }
+
+    /**
+     * Drops the resolved styles which are shared between drawables inflated with the
+     * same theme and style. The styles are resolved again when the theme is replaced
+     * or the configuration changes, but not when the theme itself is modified. Call
+     * this after {@link android.content.res.Resources.Theme#applyStyle(int, boolean)}
+     * on a theme progressbars have already been inflated with.
+     * */
+    public static void clearStyleCache(){
+        StyleCache.clear();
+    }
+
+    /**
+     * Set's the progress instantly.
+     *
+     * @param newProgress the new progress
+     * */
+    public void setProgress(float newProgress){
+        if (this.progress != newProgress){
+            this.progress = newProgress;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current progress.
+     *
+     * @return current progress
+     * */
+    public float getProgress(){
+        return progress;
+    }
+
+    /**
+     * Set's the secondary progress instantly. It's drawn from the progress to the
+     * secondary progress with the secondary progress color.
+     *
+     * @param newSecondaryProgress the new secondary progress
+     * */
+    public void setSecondaryProgress(float newSecondaryProgress){
+        if (this.secondaryProgress != newSecondaryProgress){
+            this.secondaryProgress = newSecondaryProgress;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current secondary progress.
+     *
+     * @return current secondary progress
+     * */
+    public float getSecondaryProgress(){
+        return secondaryProgress;
+    }
+
+    /**
+     * Set's the maxProgress newMaxProgress.
+     *
+     * @param newMaxProgress the new maxProgress
+     * */
+    public void setMaxProgress(float newMaxProgress){
+        if (this.maxProgress != newMaxProgress){
+            this.maxProgress = newMaxProgress;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current maxProgress.
+     *
+     * @return current maxProgress
+     * */
+    public float getMaxProgress(){
+        return maxProgress;
+    }
+
+    /**
+     * Set's the width of the outline. The outline is drawn inside the bounds.
+     *
+     * @param newOutlineWidth the new outlineWidth
+     * */
+    public void setOutlineWidth(float newOutlineWidth){
+        if (this.outlineWidth != newOutlineWidth){
+            this.outlineWidth = newOutlineWidth;
+            invalidateGeometry();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current outlineWidth
+     *
+     * @return current outlineWidth
+     * */
+    public float getOutlineWidth(){
+        return outlineWidth;
+    }
+
+    /**
+     * Colors the progress with a gradient along the bar. The color at a point of the
+     * bar doesn't change with the progress, a higher progress shows more of the
+     * gradient.
+     *
+     * @param colors the colors from the start to the end of the progress, at least two
+     * @param positions where each color is placed from 0 to 1, or null for evenly spaced
+     * */
+    public void setProgressGradient(int[] colors, @Nullable float[] positions){
+        if (colors == null || colors.length < 2){
+            throw new IllegalArgumentException("a progress gradient needs at least two colors. " +
+                    "Current value: " + (colors == null ? null : colors.length));
+        }
+        setProgressColors(PROGRESS_FILL_GRADIENT, colors, positions);
+    }
+
+    /**
+     * Colors the progress with bands of solid colors along the bar, for example green
+     * up to 60%, yellow up to 85% and red after that.
+     *
+     * @param colors the colors of the bands from the start to the end, at least one
+     * @param positions where each band starts from 0 to 1, or null for evenly sized bands
+     * */
+    public void setProgressBands(int[] colors, @Nullable float[] positions){
+        if (colors == null || colors.length < 1){
+            throw new IllegalArgumentException("progress bands need at least one color. " +
+                    "Current value: " + (colors == null ? null : colors.length));
+        }
+        setProgressColors(PROGRESS_FILL_BANDS, colors, positions);
+    }
+
+    /**
+     * Colors the progress with the single progress color again.
+     * */
+    public void clearProgressColors(){
+        if (progressFill != PROGRESS_FILL_SOLID){
+            progressFill = PROGRESS_FILL_SOLID;
+            progressColors = null;
+            progressColorPositions = null;
+            progressShader = null;
+            progressPaint.setShader(null);
+            invalidateSelf();
+        }
+    }
+
+    private void setProgressColors(int fill, int[] colors, @Nullable float[] positions){
+        if (positions != null){
+            if (positions.length != colors.length){
+                throw new IllegalArgumentException("progress color positions need one position for each color. " +
+                        "Current value: " + positions.length);
+            }
+            for (int i = 0; i < positions.length; i++){
+                if (positions[i] < 0 || positions[i] > 1 || (i > 0 && positions[i] < positions[i - 1])){
+                    throw new IllegalArgumentException("progress color positions have to be ascending from 0 to 1. " +
+                            "Current value: " + positions[i]);
+                }
+            }
+        }
+
+        progressFill = fill;
+        progressColors = colors.clone();
+        progressColorPositions = positions == null ? null : positions.clone();
+        progressShader = null;
+        invalidateSelf();
+    }
+
+    /**
+     * Returns how the progress is colored.
+     *
+     * @return {@link #PROGRESS_FILL_SOLID}, {@link #PROGRESS_FILL_GRADIENT} or {@link #PROGRESS_FILL_BANDS}
+     * */
+    public int getProgressFill(){
+        return progressFill;
+    }
+
+    /**
+     * Returns true if the progress is already colored with the fill, colors and
+     * positions. Compares without copying the colors.
+     *
+     * @param fill one of the PROGRESS_FILL constants
+     * @param colors the colors to compare
+     * @param positions the positions to compare
+     * @return true if equal to the current progress fill
+     * */
+    boolean hasProgressColors(int fill, @Nullable int[] colors, @Nullable float[] positions){
+        return progressFill == fill && Arrays.equals(progressColors, colors)
+                && Arrays.equals(progressColorPositions, positions);
+    }
+
+    /**
+     * Returns the colors of the gradient or the bands.
+     *
+     * @return a copy of the colors, null when the progress fill is solid
+     * */
+    @Nullable
+    public int[] getProgressColors(){
+        return progressColors == null ? null : progressColors.clone();
+    }
+
+    /**
+     * Returns the positions of the colors of the gradient or the bands.
+     *
+     * @return a copy of the positions, null when evenly spaced or the progress fill is solid
+     * */
+    @Nullable
+    public float[] getProgressColorPositions(){
+        return progressColorPositions == null ? null : progressColorPositions.clone();
+    }
+
+    /**
+     * Set's the color of the outline.
+     *
+     * @param newOutlineColor the new outlineColor
+     * */
+    public void setOutlineColor(int newOutlineColor){
+        if (this.outlineColor != newOutlineColor){
+            this.outlineColor = newOutlineColor;
+            outlinePaint.setColor(newOutlineColor);
+            invalidateStaticLayers();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current outlineColor
+     *
+     * @return current outlineColor
+     * */
+    public int getOutlineColor(){
+        return outlineColor;
+    }
+
+    /**
+     * Set's the color drawn from 0 to the progress.
+     *
+     * @param newProgressColor the new progress color
+     * */
+    public void setProgressColor(int newProgressColor){
+        if (this.progressColor != newProgressColor){
+            this.progressColor = newProgressColor;
+            progressPaint.setColor(newProgressColor);
+            fillShader = null;
+            indeterminateShader = null;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current progressColor
+     *
+     * @return current progressColor
+     * */
+    public int getProgressColor(){
+        return progressColor;
+    }
+
+    /**
+     * Set's the color drawn from the progress to the max progress.
+     *
+     * @param newProgressBackgroundColor the new progress background color
+     * */
+    public void setProgressBackgroundColor(int newProgressBackgroundColor){
+        if (this.progressBackgroundColor != newProgressBackgroundColor){
+            this.progressBackgroundColor = newProgressBackgroundColor;
+            progressBackgroundPaint.setColor(newProgressBackgroundColor);
+            fillShader = null;
+            indeterminateShader = null;
+            invalidateStaticLayers();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current progress background color
+     *
+     * @return current progress background color
+     * */
+    public int getProgressBackgroundColor(){
+        return progressBackgroundColor;
+    }
+
+    /**
+     * Set's the color drawn from the progress to the secondary progress.
+     *
+     * @param newSecondaryProgressColor the new secondary progress color
+     * */
+    public void setSecondaryProgressColor(int newSecondaryProgressColor){
+        if (this.secondaryProgressColor != newSecondaryProgressColor){
+            this.secondaryProgressColor = newSecondaryProgressColor;
+            secondaryProgressPaint.setColor(newSecondaryProgressColor);
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current secondary progress color.
+     *
+     * @return current secondary progress color
+     * */
+    public int getSecondaryProgressColor(){
+        return secondaryProgressColor;
+    }
+
+    /**
+     * Set's the orientation. Use {@link RoundSideProgressBar#CONSTANT_HORIZONTAL} or
+     * {@link RoundSideProgressBar#CONSTANT_VERTICAL}, other values are ignored.
+     *
+     * @param newOrientation the new orientation
+     * */
+    public void setOrientation(int newOrientation){
+        if (this.orientation != newOrientation &&
+                (newOrientation == CONSTANT_HORIZONTAL | newOrientation == CONSTANT_VERTICAL)){
+            this.orientation = newOrientation;
+            fillShader = null;
+            progressShader = null;
+            indeterminateShader = null;
+            invalidateGeometry();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current orientation.
+     *
+     * @return current orientation
+     * */
+    public int getOrientation(){
+        return orientation;
+    }
+
+    /**
+     * Set's the quantity of dividers. Zero, the default, draws no dividers.
+     *
+     * @param dividers quantity of dividers
+     * */
+    public void setDividers(int dividers){
+        if (this.dividers != dividers){
+            this.dividers = dividers;
+            invalidateGeometry();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the quantity of dividers.
+     *
+     * @return quantity of dividers
+     * */
+    public int getDividers(){
+        return dividers;
+    }
+
+    /**
+     * Set's the width of the dividers.
+     *
+     * @param width the width of the dividers
+     * */
+    public void setDividerWidth(float width){
+        if (this.dividerWidth != width){
+            this.dividerWidth = width;
+            invalidateGeometry();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the width of the dividers.
+     *
+     * @return width of the dividers
+     * */
+    public float getDividerWidth(){
+        return dividerWidth;
+    }
+
+    /**
+     * Set's the color of the dividers.
+     *
+     * @param color the color for the dividers
+     * */
+    public void setDividerColor(int color){
+        if (dividerPaint.getColor() != color){
+            dividerPaint.setColor(color);
+            dividerPattern = null;
+            invalidateStaticLayers();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the color of the dividers.
+     *
+     * @return color of dividers
+     * */
+    public int getDividerColor(){
+        return dividerPaint.getColor();
+    }
+
+    /**
+     * Set's the distances between the dividers, in pixels from the start of one divider
+     * to the start of the next, below which the dividers are drawn with less detail.
+     * Below decimateSpacing only every n:th divider is drawn so the drawn ones are at
+     * least decimateSpacing apart. Below patternSpacing the dividers are drawn as one
+     * repeating shader, and below hideSpacing they aren't drawn at all. The values
+     * must be in descending order, use 0 to never switch to a level. Dividers which
+     * fill the whole bar, with no spacing left, are never drawn.
+     *
+     * @param decimateSpacing the spacing below which dividers are skipped
+     * @param patternSpacing the spacing below which dividers are drawn as a pattern
+     * @param hideSpacing the spacing below which dividers aren't drawn
+     * */
+    public void setDividerLodSpacing(float decimateSpacing, float patternSpacing, float hideSpacing){
+        if (hideSpacing < 0 || patternSpacing < hideSpacing || decimateSpacing < patternSpacing){
+            throw new IllegalArgumentException("divider lod spacings have to be in descending order and not negative. " +
+                    "Current values: " + decimateSpacing + ", " + patternSpacing + ", " + hideSpacing);
+        }
+        if (dividerDecimateSpacing != decimateSpacing || dividerPatternSpacing != patternSpacing
+                || dividerHideSpacing != hideSpacing){
+            dividerDecimateSpacing = decimateSpacing;
+            dividerPatternSpacing = patternSpacing;
+            dividerHideSpacing = hideSpacing;
+            invalidateGeometry();
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the divider spacing below which only some dividers are drawn.
+     *
+     * @return the decimate spacing in pixels
+     * */
+    public float getDividerDecimateSpacing(){
+        return dividerDecimateSpacing;
+    }
+
+    /**
+     * Returns the divider spacing below which the dividers are drawn as a pattern.
+     *
+     * @return the pattern spacing in pixels
+     * */
+    public float getDividerPatternSpacing(){
+        return dividerPatternSpacing;
+    }
+
+    /**
+     * Returns the divider spacing below which no dividers are drawn.
+     *
+     * @return the hide spacing in pixels
+     * */
+    public float getDividerHideSpacing(){
+        return dividerHideSpacing;
+    }
+
+    /**
+     * Returns how the dividers are drawn at the current size, one of
+     * {@link #DIVIDER_LOD_FULL}, {@link #DIVIDER_LOD_DECIMATED},
+     * {@link #DIVIDER_LOD_PATTERN} or {@link #DIVIDER_LOD_NONE}.
+     *
+     * @return the current level of detail of the dividers
+     * */
+    public int getDividerLod(){
+        ensureGeometry();
+        return dividerLod;
+    }
+
+    /**
+     * Set's how the progress is filled. {@link #FILL_MODE_CLIP}, the default, clips the bar
+     * once for the progress background and once for the progress. {@link #FILL_MODE_SHADER}
+     * draws the bar once with a hard stop gradient which is moved with the progress, which
+     * avoids clipping an anti aliased path on every frame.
+     *
+     * @param mode {@link #FILL_MODE_CLIP} or {@link #FILL_MODE_SHADER}
+     * */
+    public void setFillMode(int mode){
+        if (mode != FILL_MODE_CLIP && mode != FILL_MODE_SHADER){
+            throw new IllegalArgumentException("fillMode is only allowed to be FILL_MODE_CLIP" +
+                    " or FILL_MODE_SHADER. Current value: " + mode);
+        }
+        if (this.fillMode != mode){
+            this.fillMode = mode;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current fill mode.
+     *
+     * @return {@link #FILL_MODE_CLIP} or {@link #FILL_MODE_SHADER}
+     * */
+    public int getFillMode(){
+        return fillMode;
+    }
+
+    /**
+     * Set's if the progressbar is indeterminate. An indeterminate progressbar doesn't
+     * draw the progress, it draws the style of {@link #setIndeterminateStyle(int)} at
+     * the position of {@link #setIndeterminatePhase(float)} instead.
+     *
+     * @param indeterminate true to draw the indeterminate style instead of the progress
+     * */
+    public void setIndeterminate(boolean indeterminate){
+        if (this.indeterminate != indeterminate){
+            this.indeterminate = indeterminate;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns true if the progressbar is indeterminate.
+     *
+     * @return true if indeterminate
+     * */
+    public boolean isIndeterminate(){
+        return indeterminate;
+    }
+
+    /**
+     * Set's what is drawn when indeterminate. {@link #INDETERMINATE_SWEEP}, the default,
+     * is a highlight in the progress color which sweeps over the bar.
+     * {@link #INDETERMINATE_STRIPES} are diagonal stripes in the progress color which
+     * move along the bar.
+     *
+     * @param style {@link #INDETERMINATE_SWEEP} or {@link #INDETERMINATE_STRIPES}
+     * */
+    public void setIndeterminateStyle(int style){
+        if (style != INDETERMINATE_SWEEP && style != INDETERMINATE_STRIPES){
+            throw new IllegalArgumentException("indeterminateStyle is only allowed to be INDETERMINATE_SWEEP" +
+                    " or INDETERMINATE_STRIPES. Current value: " + style);
+        }
+        if (this.indeterminateStyle != style){
+            this.indeterminateStyle = style;
+            indeterminateShader = null;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the current indeterminate style.
+     *
+     * @return {@link #INDETERMINATE_SWEEP} or {@link #INDETERMINATE_STRIPES}
+     * */
+    public int getIndeterminateStyle(){
+        return indeterminateStyle;
+    }
+
+    /**
+     * Set's the position in the indeterminate cycle. A full cycle moves the sweep from
+     * the start to the end of the bar, or the stripes by one stripe pair. Changing the
+     * phase only moves a cached shader.
+     *
+     * @param phase the position in the cycle, from 0 to 1
+     * */
+    public void setIndeterminatePhase(float phase){
+        if (this.indeterminatePhase != phase){
+            this.indeterminatePhase = phase;
+            if (indeterminate){
+                invalidateSelf();
+            }
+        }
+    }
+
+    /**
+     * Returns the current position in the indeterminate cycle.
+     *
+     * @return the phase, from 0 to 1
+     * */
+    public float getIndeterminatePhase(){
+        return indeterminatePhase;
+    }
+
+    /**
+     * Enables caching of the parts which don't change with the progress. The outline,
+     * the progress background and the dividers are recorded once and replayed every
+     * draw until a color, size or outline change. Note that the progress is then drawn
+     * on top of the whole progress background. Disabled by default.
+     *
+     * @param enabled true to record the static parts once and replay them
+     * */
+    public void setStaticLayerCacheEnabled(boolean enabled){
+        if (staticLayerCacheEnabled != enabled){
+            staticLayerCacheEnabled = enabled;
+            if (enabled){
+                backgroundLayer = new StaticLayer();
+                foregroundLayer = new StaticLayer();
+            }else{
+                backgroundLayer.release();
+                foregroundLayer.release();
+                backgroundLayer = null;
+                foregroundLayer = null;
+            }
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns true if the static parts of the progressbar are cached.
+     *
+     * @return true if the static layer cache is enabled
+     * */
+    public boolean isStaticLayerCacheEnabled(){
+        return staticLayerCacheEnabled;
+    }
+
+    /**
+     * Returns the segment the progress falls into. Segment 0 is before the first divider
+     * and the last segment, equal to the quantity of dividers, is after the last divider.
+     * A progress over a divider belongs to the segment before it.
+     *
+     * @param progress the progress to find the segment of
+     * @return the segment index from 0 to the quantity of dividers
+     * */
+    public int getSegment(float progress){
+        ensureGeometry();
+        int segment = (int) (progress / maxProgress * segmentScale);
+        return Math.max(0, Math.min(segment, Math.max(dividers, 0)));
+    }
+
+    /**
+     * Returns the start of the divider along the bar. This is the x coordinate when
+     * horizontal and the y coordinate when vertical. The dividers are ordered from
+     * left to right and from top to bottom.
+     *
+     * @param divider index of the divider, from 0 to the quantity of dividers - 1
+     * @return the start coordinate of the divider
+     * */
+    public float getDividerPosition(int divider){
+        ensureGeometry();
+        return dividerPositions[divider];
+    }
+
+    /**
+     * Returns the x coordinate (horizontal) or y coordinate (vertical) where the
+     * progress fill ends for the given progress.
+     *
+     * @param progress the progress to get the fill edge of
+     * @return the position of the fill edge
+     * */
+    public float getFillEdge(float progress){
+        ensureGeometry();
+        float lengthProcent = fillFraction(progress);
+        if (orientation == CONSTANT_HORIZONTAL){
+            return rectView.left + lengthProcent * Math.max(rectView.right - rectView.left, 0);
+        }else{
+            return rectView.bottom - lengthProcent * Math.max(rectView.bottom - rectView.top, 0f);
+        }
+    }
+
+    /**
+     * Returns the fraction of the bar filled by the progress, with the fill edge rounded
+     * to the steps of {@link #setFillEdgeSteps(int)}.
+     *
+     * @param progress the progress to get the fraction of
+     * @return the filled fraction, from 0 to 1
+     * */
+    private float fillFraction(float progress){
+        float lengthProcent = Math.min(progress / maxProgress, 1f);
+        if (fillEdgeSteps <= 0 || lengthProcent <= 0 || lengthProcent >= 1){
+            return lengthProcent;
+        }
+
+        if (orientation == CONSTANT_HORIZONTAL){
+            float length = rectView.right - rectView.left;
+            if (length <= 0){
+                return lengthProcent;
+            }
+            float edge = Math.round((rectView.left + lengthProcent * length) * fillEdgeSteps) / (float) fillEdgeSteps;
+            return Math.max(0f, Math.min((edge - rectView.left) / length, 1f));
+        }else{
+            float length = rectView.bottom - rectView.top;
+            if (length <= 0){
+                return lengthProcent;
+            }
+            float edge = Math.round((rectView.bottom - lengthProcent * length) * fillEdgeSteps) / (float) fillEdgeSteps;
+            return Math.max(0f, Math.min((rectView.bottom - edge) / length, 1f));
+        }
+    }
+
+    /**
+     * Set's how finely the fill edge is placed. The edge is rounded to 1 / steps of a
+     * pixel so progress changes within the same step draw the same. 1, the default,
+     * rounds to whole pixels, larger values keep sub pixel anti aliasing steps and 0
+     * doesn't round at all.
+     *
+     * @param steps the quantity of fill edge positions per pixel, or 0
+     * */
+    public void setFillEdgeSteps(int steps){
+        if (steps < 0){
+            throw new IllegalArgumentException("fillEdgeSteps is not allowed to have a negative value. " +
+                    "Current value: " + steps);
+        }
+        if (this.fillEdgeSteps != steps){
+            this.fillEdgeSteps = steps;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Returns the quantity of fill edge positions per pixel.
+     *
+     * @return the fill edge steps, 0 when the edge isn't rounded
+     * */
+    public int getFillEdgeSteps(){
+        return fillEdgeSteps;
+    }
+
+    /**
+     * Returns false when the outline fills the entire bounds and there is no bar to draw.
+     *
+     * @return true if the bar is drawn
+     * */
+    public boolean isBarVisible(){
+        ensureGeometry();
+        return barVisible;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+
+        Rect bounds = getBounds();
+        if (bounds.isEmpty()) {
+            return;
+        }
+
+        ensureGeometry();
+
+        int saveCount = -1;
+        if (alpha < 255) {
+            saveCount = saveLayerAlpha(canvas, bounds, alpha);
+        }
+
+        if (staticLayerCacheEnabled) {
+            if (backgroundLayer.isDirty() || foregroundLayer.isDirty()) {
+                drawStaticBackground(backgroundLayer.beginRecording(bounds));
+                backgroundLayer.endRecording();
+                drawStaticForeground(foregroundLayer.beginRecording(bounds));
+                foregroundLayer.endRecording();
+            }
+
+            backgroundLayer.draw(canvas, bounds);
+            if (indeterminate) {
+                drawIndeterminate(canvas);
+            } else {
+                drawProgress(canvas, false);
+            }
+            foregroundLayer.draw(canvas, bounds);
+        } else {
+            if (outlineVisible) {
+                canvas.drawPath(outlinePath, outlinePaint);
+            }
+            if (indeterminate) {
+                drawIndeterminate(canvas);
+            } else {
+                drawProgress(canvas, true);
+            }
+            drawStaticForeground(canvas);
+        }
+
+        if (saveCount >= 0) {
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * Draws the progress, the secondary progress and optionally the progress
+     * background from the progress to the end of the bar.
+     *
+     * @param canvas the canvas to draw on
+     * @param drawBackground true to also draw the remaining progress background
+     * */
+    protected void drawProgress(Canvas canvas, boolean drawBackground) {
+
+        //If the outline fills the entire bounds
+        if (!barVisible) {
+            return;
+        }
+
+        float lengthProcent = fillFraction(progress);
+        float secondaryLengthProcent = Math.max(fillFraction(secondaryProgress), lengthProcent);
+
+        if (progressFill != PROGRESS_FILL_SOLID && progressShader == null) {
+            updateProgressShader();
+        }
+
+        //The gradient and bands are already a shader on progressPaint, so they are clipped
+        if (fillMode == FILL_MODE_SHADER && progressFill == PROGRESS_FILL_SOLID) {
+            drawProgressWithShader(canvas);
+        } else {
+            if (drawBackground) {
+                drawSpan(canvas, secondaryLengthProcent, 1f, progressBackgroundPaint);
+            }
+            drawSpan(canvas, 0f, lengthProcent, progressPaint);
+        }
+
+        //Shares the cached bar path, only the clip differs
+        drawSpan(canvas, lengthProcent, secondaryLengthProcent, secondaryProgressPaint);
+    }
+
+    /**
+     * Draws the part of the bar between two fractions of its length, from the start of
+     * the progress. Nothing is drawn for an empty span or when it's outside the clip.
+     *
+     * @param canvas the canvas to draw on
+     * @param startProcent the start of the span, from 0 to 1
+     * @param endProcent the end of the span, from 0 to 1
+     * @param paint the paint to fill the span with
+     * */
+    private void drawSpan(Canvas canvas, float startProcent, float endProcent, Paint paint) {
+        if (endProcent - startProcent <= 0) {
+            return;
+        }
+
+        float left, top, right, bottom;
+        if (orientation == CONSTANT_HORIZONTAL) {
+            float paddedViewWidth = Math.max(rectView.right - rectView.left, 0);
+            left = rectView.left + startProcent * paddedViewWidth;
+            right = rectView.left + endProcent * paddedViewWidth;
+            top = rectView.top;
+            bottom = rectView.bottom;
+
+            //Orientation vertical
+        } else {
+            float paddedViewHeight = Math.max(rectView.bottom - rectView.top, 0f);
+            left = rectView.left;
+            right = rectView.right;
+            top = rectView.bottom - endProcent * paddedViewHeight;
+            bottom = rectView.bottom - startProcent * paddedViewHeight;
+        }
+
+        if (canvas.quickReject(left, top, right, bottom, Canvas.EdgeType.AA)) {
+            return;
+        }
+
+        canvas.save();
+        canvas.clipRect(left, top, right, bottom);
+        canvas.drawPath(barPath, paint);
+        canvas.restore();
+    }
+
+    /**
+     * Builds the shader of the gradient or the bands for the current size and sets it on
+     * progressPaint. The progress only changes the clip, never the shader.
+     * */
+    private void updateProgressShader() {
+        int[] colors;
+        float[] positions;
+        if (progressFill == PROGRESS_FILL_GRADIENT) {
+            colors = progressColors;
+            positions = progressColorPositions;
+        } else {
+            //Every band is two stops of the same color, with a hard stop to the next band
+            int count = progressColors.length;
+            colors = new int[count * 2];
+            positions = new float[count * 2];
+            for (int i = 0; i < count; i++) {
+                float start = progressColorPositions == null ? i / (float) count : progressColorPositions[i];
+                float end = i + 1 == count ? 1f
+                        : progressColorPositions == null ? (i + 1) / (float) count : progressColorPositions[i + 1];
+                colors[i * 2] = progressColors[i];
+                colors[i * 2 + 1] = progressColors[i];
+                positions[i * 2] = start;
+                positions[i * 2 + 1] = end;
+            }
+        }
+
+        //From the start of the progress to the end of the bar
+        if (orientation == CONSTANT_HORIZONTAL) {
+            progressShader = new LinearGradient(rectView.left, 0, rectView.right, 0,
+                    colors, positions, Shader.TileMode.CLAMP);
+        } else {
+            progressShader = new LinearGradient(0, rectView.bottom, 0, rectView.top,
+                    colors, positions, Shader.TileMode.CLAMP);
+        }
+        progressPaint.setShader(progressShader);
+    }
+
+    /**
+     * Draws the whole bar once with the hard stop gradient moved to the fill edge.
+     *
+     * @param canvas the canvas to draw on
+     * */
+    private void drawProgressWithShader(Canvas canvas) {
+        float lengthProcent = fillFraction(progress);
+
+        //No edge inside the bar, a plain color avoids a fringe at the caps
+        if (lengthProcent <= 0) {
+            canvas.drawPath(barPath, progressBackgroundPaint);
+            return;
+        } else if (lengthProcent >= 1) {
+            canvas.drawPath(barPath, progressPaint);
+            return;
+        }
+
+        if (fillShader == null) {
+            //The stop is at 0, the gradient is clamped on both sides
+            if (orientation == CONSTANT_HORIZONTAL) {
+                fillShader = new LinearGradient(-1, 0, 1, 0,
+                        new int[]{progressColor, progressColor, progressBackgroundColor, progressBackgroundColor},
+                        new float[]{0, 0.5f, 0.5f, 1}, Shader.TileMode.CLAMP);
+            } else {
+                fillShader = new LinearGradient(0, -1, 0, 1,
+                        new int[]{progressBackgroundColor, progressBackgroundColor, progressColor, progressColor},
+                        new float[]{0, 0.5f, 0.5f, 1}, Shader.TileMode.CLAMP);
+            }
+        }
+
+        float edge = getFillEdge(progress);
+        if (orientation == CONSTANT_HORIZONTAL) {
+            fillShaderMatrix.setTranslate(edge, 0);
+        } else {
+            fillShaderMatrix.setTranslate(0, edge);
+        }
+        fillShader.setLocalMatrix(fillShaderMatrix);
+        //Set again so older renderers pick up the new matrix
+        fillShaderPaint.setShader(fillShader);
+
+        canvas.drawPath(barPath, fillShaderPaint);
+    }
+
+    /**
+     * Draws the indeterminate style over the whole bar, with the cached shader moved to
+     * the current phase.
+     *
+     * @param canvas the canvas to draw on
+     * */
+    protected void drawIndeterminate(Canvas canvas) {
+        if (!barVisible) {
+            return;
+        }
+
+        float barLength = orientation == CONSTANT_HORIZONTAL
+                ? rectView.right - rectView.left : rectView.bottom - rectView.top;
+        float barThickness = orientation == CONSTANT_HORIZONTAL
+                ? rectView.bottom - rectView.top : rectView.right - rectView.left;
+
+        if (indeterminateStyle == INDETERMINATE_SWEEP) {
+            //A third of the bar, moved from fully before the start to fully after the end
+            float sweepLength = barLength / 3f;
+            if (indeterminateShader == null) {
+                int[] colors = {progressBackgroundColor, progressColor, progressBackgroundColor};
+                indeterminateShader = orientation == CONSTANT_HORIZONTAL
+                        ? new LinearGradient(0, 0, sweepLength, 0, colors, null, Shader.TileMode.CLAMP)
+                        : new LinearGradient(0, 0, 0, sweepLength, colors, null, Shader.TileMode.CLAMP);
+            }
+
+            float offset = -sweepLength + indeterminatePhase * (barLength + sweepLength);
+            if (orientation == CONSTANT_HORIZONTAL) {
+                indeterminateMatrix.setTranslate(rectView.left + offset, 0);
+            } else {
+                indeterminateMatrix.setTranslate(0, rectView.bottom - sweepLength - offset);
+            }
+        } else {
+            //Stripes at 45 degrees as wide as the bar is thick, repeating every two stripes
+            float stripeWidth = Math.max(barThickness, 1f);
+            if (indeterminateShader == null) {
+                indeterminateShader = new LinearGradient(0, 0, stripeWidth, stripeWidth,
+                        new int[]{progressColor, progressColor, progressBackgroundColor, progressBackgroundColor},
+                        new float[]{0, 0.5f, 0.5f, 1}, Shader.TileMode.REPEAT);
+            }
+
+            float offset = indeterminatePhase * stripeWidth * 2;
+            if (orientation == CONSTANT_HORIZONTAL) {
+                indeterminateMatrix.setTranslate(rectView.left + offset, 0);
+            } else {
+                indeterminateMatrix.setTranslate(0, rectView.bottom - offset);
+            }
+        }
+
+        indeterminateShader.setLocalMatrix(indeterminateMatrix);
+        //Set again so older renderers pick up the new matrix
+        indeterminatePaint.setShader(indeterminateShader);
+
+        canvas.drawPath(barPath, indeterminatePaint);
+    }
+
+    /**
+     * Draws everything below the progress which doesn't change with the progress.
+     * Only used when the static layer cache is enabled.
+     *
+     * @param canvas the canvas to draw on
+     * */
+    protected void drawStaticBackground(Canvas canvas) {
+        if (outlineVisible) {
+            canvas.drawPath(outlinePath, outlinePaint);
+        }
+        if (barVisible) {
+            canvas.drawPath(barPath, progressBackgroundPaint);
+        }
+    }
+
+    /**
+     * Draws everything on top of the progress which doesn't change with the progress.
+     *
+     * @param canvas the canvas to draw on
+     * */
+    protected void drawStaticForeground(Canvas canvas) {
+        if (!barVisible || dividers <= 0) {
+            return;
+        }
+
+        if (dividerLod == DIVIDER_LOD_NONE) {
+            return;
+        } else if (dividerLod == DIVIDER_LOD_PATTERN) {
+            drawDividerPattern(canvas);
+            return;
+        }
+
+        //All dividers in one draw call instead of one clip and draw per divider
+        canvas.save();
+        canvas.clipPath(dividerPath);
+        canvas.drawPath(barPath, dividerPaint);
+        canvas.restore();
+    }
+
+    /**
+     * Draws the dividers as one repeating gradient over the bar, for dividers which
+     * are too close to be drawn one by one.
+     *
+     * @param canvas the canvas to draw on
+     * */
+    private void drawDividerPattern(Canvas canvas) {
+        if (dividerPattern == null) {
+            float length = orientation == CONSTANT_HORIZONTAL
+                    ? rectView.right - rectView.left : rectView.bottom - rectView.top;
+            float pitch = (length + dividerWidth) / (dividers + 1);
+            float dividerFraction = Math.max(0f, Math.min(dividerWidth / pitch, 1f));
+
+            //The periods start at the first divider and repeat at every following one
+            float origin = dividerPositions[0];
+            int color = dividerPaint.getColor();
+            int[] colors = {color, color, color & 0x00FFFFFF, color & 0x00FFFFFF};
+            float[] positions = {0, dividerFraction, dividerFraction, 1};
+            dividerPattern = orientation == CONSTANT_HORIZONTAL
+                    ? new LinearGradient(origin, 0, origin + pitch, 0, colors, positions, Shader.TileMode.REPEAT)
+                    : new LinearGradient(0, origin, 0, origin + pitch, colors, positions, Shader.TileMode.REPEAT);
+            dividerPatternPaint.setShader(dividerPattern);
+        }
+
+        canvas.drawPath(barPath, dividerPatternPaint);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        invalidateGeometry();
+    }
+
+    /**
+     * Marks the cached geometry as stale. It will be rebuilt on the next draw.
+     * */
+    protected void invalidateGeometry(){
+        geometryDirty = true;
+    }
+
+    /**
+     * Rebuilds the cached geometry if it's stale.
+     * */
+    protected void ensureGeometry(){
+        if (geometryDirty){
+            updateGeometry();
+        }
+    }
+
+    /**
+     * Rebuilds the cached bar, outline and divider geometry from the current bounds,
+     * outline width, orientation and dividers. Progress changes never call this.
+     * */
+    protected void updateGeometry(){
+        Rect bounds = getBounds();
+
+        rectView.set(bounds.left + outlineWidth, bounds.top + outlineWidth,
+                bounds.right - outlineWidth, bounds.bottom - outlineWidth);
+
+        outlineVisible = false;
+        if (outlineWidth > 0.01) {
+            rectViewPadding.set(bounds.left + outlineWidth * 0.55f, bounds.top + outlineWidth * 0.55f,
+                    bounds.right - outlineWidth * 0.55f, bounds.bottom - outlineWidth * 0.55f);
+
+            if (!(rectViewPadding.right - rectViewPadding.left < 0
+                    || rectViewPadding.bottom - rectViewPadding.top < 0)){
+                outlinePaint.setStrokeWidth(outlineWidth * 1.05f);
+                composeRoundedRect(outlinePath, rectViewPadding, orientation);
+                outlineVisible = true;
+            }
+        }
+
+        barVisible = !(rectView.right - rectView.left < 0 || rectView.bottom - rectView.top < 0);
+        if (barVisible) {
+            composeRoundedRect(barPath, rectView, orientation);
+        }
+
+        updateDividers();
+
+        //The sweep, the stripes and the progress colors are sized after the bar
+        indeterminateShader = null;
+        progressShader = null;
+
+        invalidateStaticLayers();
+        geometryDirty = false;
+    }
+
+    private void updateDividers(){
+        int count = Math.max(dividers, 0);
+        if (dividerPositions.length != count){
+            dividerPositions = new float[count];
+        }
+
+        float length = orientation == CONSTANT_HORIZONTAL
+                ? rectView.right - rectView.left : rectView.bottom - rectView.top;
+        float start = orientation == CONSTANT_HORIZONTAL ? rectView.left : rectView.top;
+
+        float spacing = (length - (dividerWidth * dividers)) / (dividers + 1);
+        for (int i = 1; i <= count; i++){
+            dividerPositions[i - 1] = start + spacing * i + (dividerWidth * (i - 1));
+        }
+
+        //Each segment and the divider after it is (length + dividerWidth) / (dividers + 1) long
+        float segmentLength = (length + dividerWidth) / (count + 1);
+        segmentScale = segmentLength > 0 ? length / segmentLength : 0;
+
+        //Distance from the start of one divider to the next on screen
+        float pitch = spacing + dividerWidth;
+        if (count == 0){
+            dividerLod = DIVIDER_LOD_FULL;
+        }else if (pitch <= 0 || pitch < dividerHideSpacing){
+            //Without any spacing there's nothing to tell the dividers apart, even when the
+            //level of detail is turned off
+            dividerLod = DIVIDER_LOD_NONE;
+        }else if (pitch < dividerPatternSpacing){
+            dividerLod = DIVIDER_LOD_PATTERN;
+        }else if (pitch < dividerDecimateSpacing){
+            dividerLod = DIVIDER_LOD_DECIMATED;
+        }else{
+            dividerLod = DIVIDER_LOD_FULL;
+        }
+        //Clamped, a larger stride still draws only the middle divider and could overflow the index
+        dividerStride = dividerLod == DIVIDER_LOD_DECIMATED
+                ? (int) Math.min(Math.ceil(dividerDecimateSpacing / pitch), count) : 1;
+        dividerPattern = null;
+
+        dividerPath.reset();
+        if (dividerLod != DIVIDER_LOD_FULL && dividerLod != DIVIDER_LOD_DECIMATED){
+            return;
+        }
+
+        //Every dividerStride:th divider, counted from the middle so the decimated ones stay centered
+        int first = ((count - 1) / 2) % dividerStride;
+        for (int i = first; i < count; i += dividerStride){
+            float position = dividerPositions[i];
+            if (orientation == CONSTANT_HORIZONTAL) {
+                dividerPath.addRect(position, rectView.top,
+                        position + dividerWidth, rectView.bottom, Path.Direction.CW);
+            } else {
+                dividerPath.addRect(rectView.left, position,
+                        rectView.right, position + dividerWidth, Path.Direction.CW);
+            }
+        }
+    }
+
+    /**
+     * Marks the cached static layers as stale, if the cache is enabled. Call this
+     * when anything drawn by {@link #drawStaticBackground(Canvas)} or
+     * {@link #drawStaticForeground(Canvas)} changes.
+     * */
+    protected void invalidateStaticLayers(){
+        if (staticLayerCacheEnabled){
+            backgroundLayer.invalidate();
+            foregroundLayer.invalidate();
+        }
+    }
+
+    /**
+     * Saves a layer with the given alpha over the bounds.
+     *
+     * @param canvas the canvas to save the layer on
+     * @param bounds the bounds of the layer
+     * @param alpha the alpha the layer is drawn with when restored
+     * @return the save count to restore to
+     * */
+    @SuppressWarnings("deprecation")
+    private static int saveLayerAlpha(Canvas canvas, Rect bounds, int alpha){
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP){
+            return canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha);
+        }
+        //There's no overload without the save flags before API 21
+        return canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom,
+                alpha, Canvas.ALL_SAVE_FLAG);
+    }
+
+    /**
+     * Writes a rect with fully rounded short sides into the given path.
+     *
+     * @param p the path to reset and reuse
+     * @param rect the bounds of the rounded rect
+     * @param orientation {@link RoundSideProgressBar#CONSTANT_HORIZONTAL} or
+     *                    {@link RoundSideProgressBar#CONSTANT_VERTICAL}
+     * @return the given path
+     * */
+    protected Path composeRoundedRect(Path p, RectF rect, int orientation) {
+        p.reset();
+        float cornerRadius;
+        if (orientation == CONSTANT_HORIZONTAL) {
+            cornerRadius = Math.abs((rect.bottom - rect.top) / 2);
+            p.moveTo(rect.left + cornerRadius, rect.top);
+            p.lineTo(rect.right - cornerRadius, rect.top);
+            arcRect.set(rect.right - cornerRadius * 2, rect.top, rect.right, rect.bottom);
+            p.arcTo(arcRect, -90, 180);
+            p.lineTo(rect.left + cornerRadius, rect.bottom);
+            arcRect.set(rect.left, rect.top, rect.left + cornerRadius * 2, rect.bottom);
+            p.arcTo(arcRect, 90, 180);
+        } else {
+            cornerRadius = Math.abs((rect.right - rect.left) / 2);
+            p.moveTo(rect.left, rect.top + cornerRadius);
+            arcRect.set(rect.left, rect.top, rect.right, rect.top + cornerRadius * 2);
+            p.arcTo(arcRect, 180, 180);
+            p.lineTo(rect.right, rect.bottom - cornerRadius);
+            arcRect.set(rect.left, rect.bottom - cornerRadius * 2, rect.right, rect.bottom);
+            p.arcTo(arcRect, 0, 180);
+            p.lineTo(rect.left, rect.top + cornerRadius);
+        }
+
+        p.close();
+        return p;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        float width = orientation == CONSTANT_HORIZONTAL
+                ? RoundSideProgressBar.DEFAULT_WIDTH : RoundSideProgressBar.DEFAULT_HEIGHT;
+        return (int) (width + outlineWidth * 2);
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        float height = orientation == CONSTANT_HORIZONTAL
+                ? RoundSideProgressBar.DEFAULT_HEIGHT : RoundSideProgressBar.DEFAULT_WIDTH;
+        return (int) (height + outlineWidth * 2);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha){
+            this.alpha = alpha;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        outlinePaint.setColorFilter(colorFilter);
+        progressPaint.setColorFilter(colorFilter);
+        progressBackgroundPaint.setColorFilter(colorFilter);
+        dividerPaint.setColorFilter(colorFilter);
+        secondaryProgressPaint.setColorFilter(colorFilter);
+        fillShaderPaint.setColorFilter(colorFilter);
+        indeterminatePaint.setColorFilter(colorFilter);
+        dividerPatternPaint.setColorFilter(colorFilter);
+        invalidateStaticLayers();
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    private static void checkValidMaxProgress(float value){
+        if (value <= 0){
+            throw new IllegalArgumentException("maxProgress is not allowed to be negative or have a value of zero. " +
+                    "Current value: " + value);
+        }
+    }
+
+    private static void checkValidProgress(float value){
+        if (value < 0){
+            throw new IllegalArgumentException("progress is not allowed to have a negative value. " +
+                    "Current value: " + value);
+        }
+    }
+
+    private static void checkValidOutlineWidth(float value){
+        if (value < 0){
+            throw new IllegalArgumentException("dividerWidth is not allowed to have a negative value. " +
+                    "Current value: " + value);
+        }
+    }
+
+    private static void checkValidOrientation(int value){
+        if (value != 0 && value != 1){
+            throw new IllegalArgumentException("orientation is only allowed to have a value of \"vertical\"" +
+                    " or \"horizontal\". " +
+                    "Current value: " + value);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.os.Build;
+
+/**
+ * @author Oscar Creator
+ *
+ * Records drawing which doesn't change with the progress so it can be replayed
+ * every frame. A {@link Picture} is used where the hardware renderer is able to
+ * replay it (API 23+), a {@link Bitmap} otherwise.
+ * */
+class StaticLayer {
+
+    private static final boolean USE_PICTURE = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+
+    private Picture picture;
+
+    private Bitmap bitmap;
+    private Canvas bitmapCanvas;
+
+    private boolean dirty = true;
+
+    /**
+     * Marks the recording as stale. It has to be recorded again before it's drawn.
+     * */
+    void invalidate(){
+        dirty = true;
+    }
+
+    boolean isDirty(){
+        return dirty;
+    }
+
+    /**
+     * Returns a canvas to record the static content into. The canvas uses the same
+     * coordinates as the bounds. Must be followed by {@link #endRecording()}.
+     *
+     * @param bounds the area to record
+     * @return the canvas to draw the static content on
+     * */
+    Canvas beginRecording(Rect bounds){
+        Canvas canvas;
+        if (USE_PICTURE){
+            if (picture == null){
+                picture = new Picture();
+            }
+            canvas = picture.beginRecording(bounds.width(), bounds.height());
+        } else {
+            if (bitmap == null || bitmap.getWidth() != bounds.width() || bitmap.getHeight() != bounds.height()){
+                release();
+                bitmap = Bitmap.createBitmap(bounds.width(), bounds.height(), Bitmap.Config.ARGB_8888);
+                bitmapCanvas = new Canvas(bitmap);
+            } else {
+                bitmap.eraseColor(Color.TRANSPARENT);
+            }
+            canvas = bitmapCanvas;
+        }
+
+        canvas.save();
+        canvas.translate(-bounds.left, -bounds.top);
+        return canvas;
+    }
+
+    void endRecording(){
+        if (USE_PICTURE){
+            picture.endRecording();
+        } else {
+            bitmapCanvas.restore();
+        }
+        dirty = false;
+    }
+
+    /**
+     * Replays the last recording onto the canvas.
+     *
+     * @param canvas the canvas to draw on
+     * @param bounds the area which was recorded
+     * */
+    void draw(Canvas canvas, Rect bounds){
+        if (USE_PICTURE){
+            if (picture != null){
+                canvas.save();
+                canvas.translate(bounds.left, bounds.top);
+                canvas.drawPicture(picture);
+                canvas.restore();
+            }
+        } else if (bitmap != null){
+            canvas.drawBitmap(bitmap, bounds.left, bounds.top, null);
+        }
+    }
+
+    /**
+     * Drops the recording and frees the backing bitmap if there is one.
+     * */
+    void release(){
+        if (bitmap != null){
+            bitmap.recycle();
+            bitmap = null;
+            bitmapCanvas = null;
+        }
+        picture = null;
+        dirty = true;
+    }
+}
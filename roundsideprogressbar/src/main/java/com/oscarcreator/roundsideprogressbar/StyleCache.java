@@ -0,0 +1,300 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * @author Oscar Creator
+ *
+ * Process wide cache of resolved style attributes. Progressbars which are inflated
+ * with the same theme and style copy their values from here instead of resolving
+ * every attribute and default resource again.
+ *
+ * Only attributes which come from the theme and the style are cached. When the
+ * attribute set has a value of its own for one of the attributes it's resolved as
+ * usual and not cached.
+ * */
+final class StyleCache {
+
+    /**
+     * Resolved values of {@link R.styleable#RoundSideProgressBar} together with the
+     * default divider width and color.
+     * */
+    static final class BarStyle {
+        float maxProgress, progress, secondaryProgress, outlineWidth;
+        int progressColor, outlineColor, progressBackgroundColor, secondaryProgressColor, orientation;
+        int progressFill;
+        int[] progressColors;
+        float[] progressColorPositions;
+        float dividerWidth;
+        int dividerColor;
+    }
+
+    /**
+     * Resolved values of {@link R.styleable#DividedRoundSideProgressBar}.
+     * */
+    static final class DividerStyle {
+        int dividers;
+        float dividerWidth;
+        int dividerColor;
+    }
+
+    /**
+     * Styles resolved with one theme, keyed by the style resource of the attribute set,
+     * 0 when there is none. Themes with equal keys are equal even with different
+     * configurations, so the styles are only used for the same theme instance and an
+     * equal configuration.
+     * */
+    private static final class ThemeStyles<T> {
+        final WeakReference<Resources.Theme> theme;
+        final Configuration configuration;
+        final SparseArray<T> styles = new SparseArray<>();
+
+        ThemeStyles(Resources.Theme theme, Configuration configuration) {
+            this.theme = new WeakReference<>(theme);
+            //Copied, the configuration of the resources is updated in place
+            this.configuration = new Configuration(configuration);
+        }
+
+        boolean matches(Resources.Theme theme, Configuration configuration){
+            return this.theme.get() == theme && this.configuration.equals(configuration);
+        }
+    }
+
+    private static final WeakHashMap<Resources.Theme, ThemeStyles<BarStyle>> barStyles = new WeakHashMap<>();
+    private static final WeakHashMap<Resources.Theme, ThemeStyles<DividerStyle>> dividerStyles = new WeakHashMap<>();
+
+    private StyleCache() {}
+
+    /**
+     * Returns the resolved {@link R.styleable#RoundSideProgressBar} values for the
+     * context and attrs. The returned values must not be modified.
+     *
+     * @param context the context to resolve the attributes with
+     * @param attrs the attributes or null for the default style
+     * @return the resolved values
+     * */
+    static BarStyle getBarStyle(Context context, @Nullable AttributeSet attrs){
+        if (!isCacheable(attrs, R.styleable.RoundSideProgressBar)){
+            return resolveBarStyle(context, attrs);
+        }
+
+        Resources.Theme theme = context.getTheme();
+        Configuration configuration = context.getResources().getConfiguration();
+        int styleRes = attrs == null ? 0 : attrs.getStyleAttribute();
+
+        synchronized (barStyles){
+            ThemeStyles<BarStyle> styles = barStyles.get(theme);
+            BarStyle style = styles == null || !styles.matches(theme, configuration)
+                    ? null : styles.styles.get(styleRes);
+            if (style != null){
+                return style;
+            }
+        }
+
+        //Resolved outside the lock, two threads might both resolve the same style
+        BarStyle style = resolveBarStyle(context, attrs);
+
+        synchronized (barStyles){
+            ThemeStyles<BarStyle> styles = barStyles.get(theme);
+            if (styles == null || !styles.matches(theme, configuration)){
+                styles = new ThemeStyles<>(theme, configuration);
+                barStyles.put(theme, styles);
+            }
+            styles.styles.put(styleRes, style);
+        }
+        return style;
+    }
+
+    /**
+     * Returns the resolved {@link R.styleable#DividedRoundSideProgressBar} values for
+     * the context and attrs. The returned values must not be modified.
+     *
+     * @param context the context to resolve the attributes with
+     * @param attrs the attributes or null for the default style
+     * @return the resolved values
+     * */
+    static DividerStyle getDividerStyle(Context context, @Nullable AttributeSet attrs){
+        if (!isCacheable(attrs, R.styleable.DividedRoundSideProgressBar)){
+            return resolveDividerStyle(context, attrs);
+        }
+
+        Resources.Theme theme = context.getTheme();
+        Configuration configuration = context.getResources().getConfiguration();
+        int styleRes = attrs == null ? 0 : attrs.getStyleAttribute();
+
+        synchronized (dividerStyles){
+            ThemeStyles<DividerStyle> styles = dividerStyles.get(theme);
+            DividerStyle style = styles == null || !styles.matches(theme, configuration)
+                    ? null : styles.styles.get(styleRes);
+            if (style != null){
+                return style;
+            }
+        }
+
+        DividerStyle style = resolveDividerStyle(context, attrs);
+
+        synchronized (dividerStyles){
+            ThemeStyles<DividerStyle> styles = dividerStyles.get(theme);
+            if (styles == null || !styles.matches(theme, configuration)){
+                styles = new ThemeStyles<>(theme, configuration);
+                dividerStyles.put(theme, styles);
+            }
+            styles.styles.put(styleRes, style);
+        }
+        return style;
+    }
+
+    /**
+     * Drops every cached style. Needed if a theme is modified with
+     * {@link Resources.Theme#applyStyle(int, boolean)} after progressbars have been
+     * inflated with it, the cache can't tell the modified theme apart.
+     * */
+    static void clear(){
+        synchronized (barStyles){
+            barStyles.clear();
+        }
+        synchronized (dividerStyles){
+            dividerStyles.clear();
+        }
+    }
+
+    /**
+     * Returns true if none of the attributes of the styleable are set directly in attrs.
+     * */
+    private static boolean isCacheable(@Nullable AttributeSet attrs, int[] styleable){
+        if (attrs == null){
+            return true;
+        }
+
+        for (int i = 0; i < attrs.getAttributeCount(); i++){
+            int nameResource = attrs.getAttributeNameResource(i);
+            for (int attr : styleable){
+                if (attr == nameResource){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static BarStyle resolveBarStyle(Context context, @Nullable AttributeSet attrs){
+        BarStyle style = new BarStyle();
+
+        TypedArray typedArray = context.getTheme().obtainStyledAttributes(attrs,
+                R.styleable.RoundSideProgressBar, R.attr.roundSideProgressBarStyle, R.style.RoundSideProgressBar);
+
+        try {
+
+            style.maxProgress = typedArray.getFloat(R.styleable.RoundSideProgressBar_maxProgress,
+                    context.getResources().getInteger(R.integer.defMaxProgress));
+
+            style.progress = typedArray.getFloat(R.styleable.RoundSideProgressBar_progress,
+                    context.getResources().getInteger(R.integer.defProgress));
+
+            style.secondaryProgress = typedArray.getFloat(R.styleable.RoundSideProgressBar_secondaryProgress,
+                    context.getResources().getInteger(R.integer.defSecondaryProgress));
+
+
+            style.progressColor = typedArray.getColor(R.styleable.RoundSideProgressBar_progressColor,
+                    ContextCompat.getColor(context, RoundSideProgressBar.DEFAULT_PROGRESS_COLOR_ID));
+            style.outlineColor = typedArray.getColor(R.styleable.RoundSideProgressBar_outlineColor,
+                    ContextCompat.getColor(context, RoundSideProgressBar.DEFAULT_BACKGROUND_COLOR_ID));
+            style.progressBackgroundColor = typedArray.getColor(R.styleable.RoundSideProgressBar_progressBackgroundColor,
+                    ContextCompat.getColor(context, RoundSideProgressBar.DEFAULT_PROGRESS_BACKGROUND_COLOR_ID));
+            style.secondaryProgressColor = typedArray.getColor(R.styleable.RoundSideProgressBar_secondaryProgressColor,
+                    ContextCompat.getColor(context, RoundSideProgressBar.DEFAULT_SECONDARY_PROGRESS_COLOR_ID));
+
+
+            style.outlineWidth = typedArray.getDimension(R.styleable.RoundSideProgressBar_outlineWidth,
+                    context.getResources().getDimension(R.dimen.defOutlineWidth));
+
+            style.orientation = typedArray.getInt(R.styleable.RoundSideProgressBar_orientation,
+                    context.getResources().getInteger(R.integer.horizontalConst));
+
+            style.progressFill = typedArray.getInt(R.styleable.RoundSideProgressBar_progressFill,
+                    RoundSideProgressBarDrawable.PROGRESS_FILL_SOLID);
+            style.progressColors = getColorArray(context,
+                    typedArray.getResourceId(R.styleable.RoundSideProgressBar_progressColors, 0));
+            style.progressColorPositions = getFloatArray(context,
+                    typedArray.getResourceId(R.styleable.RoundSideProgressBar_progressColorPositions, 0));
+
+        } finally {
+            typedArray.recycle();
+        }
+
+        style.dividerWidth = context.getResources().getDimension(R.dimen.defDividerWidth);
+        style.dividerColor = ContextCompat.getColor(context, DividedRoundSideProgressBar.DEFAULT_DIVIDER_COLOR_ID);
+
+        return style;
+    }
+
+    @Nullable
+    private static int[] getColorArray(Context context, int arrayRes){
+        if (arrayRes == 0){
+            return null;
+        }
+
+        TypedArray array = context.getResources().obtainTypedArray(arrayRes);
+        try {
+            int[] colors = new int[array.length()];
+            for (int i = 0; i < colors.length; i++){
+                colors[i] = array.getColor(i, 0);
+            }
+            return colors;
+        } finally {
+            array.recycle();
+        }
+    }
+
+    @Nullable
+    private static float[] getFloatArray(Context context, int arrayRes){
+        if (arrayRes == 0){
+            return null;
+        }
+
+        TypedArray array = context.getResources().obtainTypedArray(arrayRes);
+        try {
+            float[] values = new float[array.length()];
+            for (int i = 0; i < values.length; i++){
+                values[i] = array.getFloat(i, 0);
+            }
+            return values;
+        } finally {
+            array.recycle();
+        }
+    }
+
+    private static DividerStyle resolveDividerStyle(Context context, @Nullable AttributeSet attrs){
+        DividerStyle style = new DividerStyle();
+
+        TypedArray typedArray = context.getTheme().obtainStyledAttributes(attrs,
+                R.styleable.DividedRoundSideProgressBar,
+                R.attr.dividedRoundSideProgressBarStyle,
+                R.style.DividedRoundSideProgressBar);
+        try {
+
+            style.dividers = typedArray.getInteger(R.styleable.DividedRoundSideProgressBar_dividers,
+                    context.getResources().getInteger(R.integer.defDividers));
+
+            style.dividerWidth = typedArray.getDimension(R.styleable.DividedRoundSideProgressBar_dividerWidth,
+                    context.getResources().getDimension(R.dimen.defDividerWidth));
+
+            style.dividerColor = typedArray.getColor(R.styleable.DividedRoundSideProgressBar_dividerColor,
+                    ContextCompat.getColor(context, DividedRoundSideProgressBar.DEFAULT_DIVIDER_COLOR_ID));
+        } finally {
+            typedArray.recycle();
+        }
+
+        return style;
+    }
+}
@@ -0,0 +1,52 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+ * @author Oscar Creator
+ *
+ * Lays out views without a window so they can be measured and drawn directly.
+ * Shared by the instrumented tests and the benchmarks module.
+ * */
+public final class TestViews {
+
+    private TestViews() {}
+
+    /**
+     * Measures the view with an exact size and lays it out at the origin.
+     *
+     * @param view the view to lay out
+     * @param width the width of the view
+     * @param height the height of the view
+     * @return the given view
+     * */
+    public static <T extends View> T layout(T view, int width, int height){
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+        return view;
+    }
+
+    /**
+     * Returns a software canvas drawing into a new bitmap of the size of the view.
+     *
+     * @param view the laid out view
+     * @return the canvas to draw the view on
+     * */
+    public static Canvas createCanvas(View view){
+        return new Canvas(createBitmap(view));
+    }
+
+    /**
+     * Returns a transparent bitmap of the size of the view.
+     *
+     * @param view the laid out view
+     * @return a new bitmap
+     * */
+    public static Bitmap createBitmap(View view){
+        return Bitmap.createBitmap(Math.max(view.getWidth(), 1), Math.max(view.getHeight(), 1),
+                Bitmap.Config.ARGB_8888);
+    }
+}
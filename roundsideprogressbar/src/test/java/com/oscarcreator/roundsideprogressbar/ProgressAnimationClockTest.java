@@ -0,0 +1,211 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * Drives the {@link ProgressAnimationClock} with frames posted by hand, so it runs on
+ * the JVM without a Choreographer.
+ * */
+public class ProgressAnimationClockTest {
+
+    private static final long FRAME_NANOS = 16666667L;
+
+    private static final long DURATION_NANOS = 1000000000L;
+
+    //The first frame starts the animation, the first frame past the duration ends it
+    private static final int FRAMES_PER_ANIMATION = (int) Math.ceil(DURATION_NANOS / (double) FRAME_NANOS) + 1;
+
+    //Generous, the timed runs share the machine with everything else
+    private static final int MAX_PER_BAR_COST_FACTOR = 4;
+    private static final int TIMED_RUNS = 5;
+
+    private ManualFrameSource frameSource;
+    private ProgressAnimationClock clock;
+
+    @Before
+    public void setUp(){
+        frameSource = new ManualFrameSource();
+        clock = new ProgressAnimationClock(frameSource);
+    }
+
+    @Test
+    public void advancesEveryListenerOncePerFrameUntilSettled(){
+        AnimatedValue shortAnimation = new AnimatedValue(DURATION_NANOS / 2);
+        AnimatedValue longAnimation = new AnimatedValue(DURATION_NANOS);
+        clock.register(shortAnimation);
+        clock.register(longAnimation);
+
+        int frames = 0;
+        while (frameSource.nextFrame()){
+            frames++;
+            assertEquals(frames, longAnimation.frames);
+        }
+
+        assertEquals(FRAMES_PER_ANIMATION, frames);
+        assertTrue(shortAnimation.frames < longAnimation.frames);
+        assertEquals(100f, shortAnimation.value, 0f);
+        assertEquals(100f, longAnimation.value, 0f);
+        assertEquals(0, clock.getActiveCount());
+    }
+
+    @Test
+    public void postsOneFrameCallbackPerFrame(){
+        for (int i = 0; i < 10; i++){
+            clock.register(new AnimatedValue(DURATION_NANOS));
+        }
+        assertEquals(1, frameSource.posted);
+
+        frameSource.nextFrame();
+        assertEquals(2, frameSource.posted);
+    }
+
+    @Test
+    public void listenerRegisteredDuringFrameStartsOnNextFrame(){
+        AnimatedValue registeredLater = new AnimatedValue(DURATION_NANOS);
+        clock.register(frameTimeNanos -> {
+            clock.register(registeredLater);
+            return false;
+        });
+
+        frameSource.nextFrame();
+        assertEquals(0, registeredLater.frames);
+        assertEquals(1, clock.getActiveCount());
+
+        frameSource.nextFrame();
+        assertEquals(1, registeredLater.frames);
+    }
+
+    @Test
+    public void noFramesArePostedOnceSettled(){
+        clock.register(new AnimatedValue(FRAME_NANOS));
+        while (frameSource.nextFrame()){
+            //Run until settled
+        }
+
+        int posted = frameSource.posted;
+        assertFalse(frameSource.nextFrame());
+        assertEquals(posted, frameSource.posted);
+    }
+
+    /**
+     * The clock must only add a constant cost per bar. Every bar is advanced exactly
+     * once per frame, and the time per bar of a frame stays within a factor between
+     * 1,000 and 10,000 bars. Smaller counts are too short to time reliably.
+     * */
+    @Test
+    public void frameCostScalesLinearlyWithBarCount(){
+        for (int barCount : new int[]{10, 100, 1000, 10000}){
+            AnimatedValue[] values = runAnimations(barCount);
+            for (AnimatedValue value : values){
+                assertEquals(FRAMES_PER_ANIMATION, value.frames);
+            }
+            assertEquals(0, clock.getActiveCount());
+        }
+
+        long perBarNanos = bestFrameNanos(1000) / 1000;
+        long perBarNanosManyBars = bestFrameNanos(10000) / 10000;
+        assertTrue("Per bar cost grew from " + perBarNanos + " ns to " + perBarNanosManyBars + " ns",
+                perBarNanosManyBars <= Math.max(perBarNanos, 1) * MAX_PER_BAR_COST_FACTOR);
+    }
+
+    /**
+     * Returns the fastest average frame time of a few runs, which is the least
+     * disturbed by the JIT and the garbage collector.
+     *
+     * @param barCount quantity of bars to animate
+     * @return the average time of one frame in nanoseconds
+     * */
+    private long bestFrameNanos(int barCount){
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < TIMED_RUNS; run++){
+            long start = System.nanoTime();
+            runAnimations(barCount);
+            best = Math.min(best, (System.nanoTime() - start) / FRAMES_PER_ANIMATION);
+        }
+        return best;
+    }
+
+    /**
+     * Animates the bars until they have settled.
+     *
+     * @param barCount quantity of bars to animate
+     * @return the animated bars
+     * */
+    private AnimatedValue[] runAnimations(int barCount){
+        AnimatedValue[] values = new AnimatedValue[barCount];
+        for (int i = 0; i < barCount; i++){
+            values[i] = new AnimatedValue(DURATION_NANOS);
+            clock.register(values[i]);
+        }
+
+        while (frameSource.nextFrame()){
+            //Run until settled
+        }
+        return values;
+    }
+
+    /**
+     * Delivers the posted frame when {@link #nextFrame()} is called, 60 frames per second.
+     * */
+    private static final class ManualFrameSource implements ProgressAnimationClock.FrameSource {
+
+        private ProgressAnimationClock pending;
+
+        private long frameTimeNanos;
+
+        int posted;
+
+        @Override
+        public void postFrame(ProgressAnimationClock clock) {
+            pending = clock;
+            posted++;
+        }
+
+        /**
+         * Delivers the posted frame.
+         *
+         * @return false if no frame was posted
+         * */
+        boolean nextFrame(){
+            if (pending == null){
+                return false;
+            }
+
+            ProgressAnimationClock clock = pending;
+            pending = null;
+            frameTimeNanos += FRAME_NANOS;
+            clock.doFrame(frameTimeNanos);
+            return true;
+        }
+    }
+
+    /**
+     * A progressbar reduced to its animation, from 0 to 100.
+     * */
+    private static final class AnimatedValue implements ProgressAnimationClock.FrameListener {
+
+        private final ProgressAnimation animation = new ProgressAnimation();
+
+        float value;
+
+        int frames;
+
+        AnimatedValue(long durationNanos) {
+            animation.start(0f, 100f, durationNanos);
+        }
+
+        @Override
+        public boolean doAnimationFrame(long frameTimeNanos) {
+            frames++;
+            value = animation.advance(frameTimeNanos, 100f);
+            return animation.isRunning();
+        }
+    }
+}
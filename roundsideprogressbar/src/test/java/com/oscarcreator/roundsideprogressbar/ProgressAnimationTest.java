@@ -0,0 +1,157 @@
+package com.oscarcreator.roundsideprogressbar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Oscar Creator
+ *
+ * Retargeting a running {@link ProgressAnimation} must keep the velocity continuous
+ * and must not allocate.
+ * */
+public class ProgressAnimationTest {
+
+    //Small steps so the velocity can be estimated from the difference of two frames
+    private static final long STEP_NANOS = 1000000L;
+
+    private static final long DURATION_NANOS = 1000000000L;
+
+    private static final float MAX_VALUE = 100f;
+
+    private ProgressAnimation animation;
+
+    private long frameTimeNanos;
+    private float value;
+
+    @Before
+    public void setUp(){
+        animation = new ProgressAnimation();
+        frameTimeNanos = 0;
+        value = 0f;
+    }
+
+    @Test
+    public void retargetKeepsVelocityContinuous(){
+        animation.start(0f, 100f, DURATION_NANOS);
+        step();
+        advanceTo(DURATION_NANOS * 3 / 10);
+
+        float before = velocity();
+        assertTrue(before > 0f);
+
+        animation.start(value, 50f, DURATION_NANOS);
+        float after = velocity();
+
+        assertEquals(before, after, Math.abs(before) * 0.02f);
+    }
+
+    @Test
+    public void retargetInOppositeDirectionKeepsVelocityContinuous(){
+        animation.start(0f, 100f, DURATION_NANOS);
+        step();
+        advanceTo(DURATION_NANOS / 2);
+
+        float before = velocity();
+
+        animation.start(value, 0f, DURATION_NANOS);
+        float after = velocity();
+
+        assertEquals(before, after, Math.abs(before) * 0.02f);
+    }
+
+    @Test
+    public void startFromRestEasesIn(){
+        animation.start(0f, 100f, DURATION_NANOS);
+        step();
+        assertEquals(0f, value, 0f);
+
+        //Cosine easing starts without velocity
+        float first = velocity();
+        advanceTo(DURATION_NANOS / 2);
+        assertTrue(first < velocity() / 100f);
+    }
+
+    @Test
+    public void reachesTargetAfterRetarget(){
+        animation.start(0f, 100f, DURATION_NANOS);
+        step();
+        advanceTo(DURATION_NANOS / 4);
+
+        animation.start(value, 30f, DURATION_NANOS);
+        while (animation.isRunning()){
+            step();
+        }
+        assertEquals(30f, value, 0f);
+    }
+
+    @Test
+    public void valueIsKeptWithinMaxValue(){
+        animation.start(0f, 100f, DURATION_NANOS);
+        step();
+        advanceTo(DURATION_NANOS * 9 / 10);
+
+        //The overshoot of the retarget past 100 is clamped
+        animation.start(value, 100f, DURATION_NANOS / 10);
+        while (animation.isRunning()){
+            step();
+            assertTrue(value <= MAX_VALUE);
+        }
+        assertFalse(animation.isRunning());
+    }
+
+    @Test
+    public void retargetingDoesNotAllocate(){
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        long threadId = Thread.currentThread().getId();
+        animation.start(0f, 100f, DURATION_NANOS);
+        //Warm up so class loading and the first read of the counter aren't counted
+        retarget(10000);
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        retarget(10000);
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(0, after - before);
+    }
+
+    private void retarget(int count){
+        for (int i = 0; i < count; i++){
+            animation.start(value, (i % 100), DURATION_NANOS);
+            step();
+        }
+    }
+
+    /**
+     * Advances one step and returns the velocity over the step, in value per second.
+     * */
+    private float velocity(){
+        float previous = value;
+        step();
+        return (value - previous) / STEP_NANOS * 1e9f;
+    }
+
+    private void advanceTo(long timeNanos){
+        while (frameTimeNanos < timeNanos){
+            step();
+        }
+    }
+
+    private void step(){
+        frameTimeNanos += STEP_NANOS;
+        value = animation.advance(frameTimeNanos, MAX_VALUE);
+    }
+}